@@ -2,8 +2,10 @@ package com.nour.ali.java_learning_backend;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class JavaLearningBackendApplication {
 
 	public static void main(String[] args) {
@@ -1,32 +1,20 @@
 package com.nour.ali.java_learning_backend.config;
 
 import com.nour.ali.java_learning_backend.security.CustomAuthenticationEntryPoint;
-import com.nour.ali.java_learning_backend.service.JwtService;
-import io.jsonwebtoken.JwtException;
-import jakarta.servlet.FilterChain;
-import jakarta.servlet.ServletException;
-import jakarta.servlet.http.HttpServletRequest;
-import jakarta.servlet.http.HttpServletResponse;
+import com.nour.ali.java_learning_backend.security.JwtAuthenticationFilter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.http.HttpHeaders;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
-import org.springframework.web.filter.OncePerRequestFilter;
 
-import java.io.IOException;
-import java.util.Collections;
 import java.util.List;
 
 @Configuration
@@ -34,7 +22,7 @@ import java.util.List;
 public class SecurityConfig {
 
     @Autowired
-    private JwtService jwtService;
+    private JwtAuthenticationFilter jwtAuthFilter;
 
     @Autowired
     private CustomAuthenticationEntryPoint customEntryPoint;
@@ -51,7 +39,7 @@ public class SecurityConfig {
                 .exceptionHandling(e -> e.authenticationEntryPoint(customEntryPoint))
                 .sessionManagement(s -> s.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth.anyRequest().permitAll())
-                .addFilterBefore(jwtAuthFilter(), UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
     }
@@ -70,54 +58,11 @@ public class SecurityConfig {
         return source;
     }
 
+    // The filter runs inside the security chain only, not a second time as a plain servlet filter
     @Bean
-    public OncePerRequestFilter jwtAuthFilter() {
-        return new OncePerRequestFilter() {
-            @Override
-            protected void doFilterInternal(HttpServletRequest request,
-                                            HttpServletResponse response,
-                                            FilterChain filterChain) throws ServletException, IOException {
-
-                String method = request.getMethod();
-                String uri = request.getRequestURI();
-                System.out.println("➡️ Incoming request: " + method + " " + uri);
-
-                // ✅ Let CORS handle preflight fully
-                if ("OPTIONS".equalsIgnoreCase(method)) {
-                    filterChain.doFilter(request, response);
-                    return;
-                }
-
-                String authHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
-                if (authHeader != null && authHeader.startsWith("Bearer ")) {
-                    String token = authHeader.substring(7);
-                    try {
-                        String username = jwtService.extractUsername(token);
-                        String role = jwtService.extractRole(token);
-                        boolean valid = jwtService.validateToken(token);
-
-                        if (username != null && valid &&
-                                SecurityContextHolder.getContext().getAuthentication() == null) {
-
-                            var auth = new UsernamePasswordAuthenticationToken(
-                                    username, null, Collections.emptyList());
-                            SecurityContextHolder.getContext().setAuthentication(auth);
-                            System.out.println("🟢 Authenticated: " + username);
-                        }
-
-                    } catch (JwtException e) {
-                        System.out.println("❌ JWT error: " + e.getMessage());
-                    }
-                }
-
-                filterChain.doFilter(request, response);
-            }
-        };
-    }
-
-
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public FilterRegistrationBean<JwtAuthenticationFilter> jwtAuthFilterRegistration(JwtAuthenticationFilter filter) {
+        FilterRegistrationBean<JwtAuthenticationFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setEnabled(false);
+        return registration;
     }
 }
@@ -0,0 +1,86 @@
+package com.nour.ali.java_learning_backend.config;
+
+import com.nour.ali.java_learning_backend.service.CompressedColumnMigrationService;
+import com.nour.ali.java_learning_backend.service.FileBlobService;
+import com.nour.ali.java_learning_backend.service.SimilarityService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+
+import java.util.List;
+import java.util.function.IntSupplier;
+
+@Configuration
+public class StorageInitializer {
+
+    private record CompressedColumn(String table, List<String> key, String legacyColumn, String dataColumn) {}
+
+    private static final List<CompressedColumn> COMPRESSED_COLUMNS = List.of(
+            new CompressedColumn("file_blobs", List.of("hash"), "content", "data"),
+            new CompressedColumn("grades", List.of("student_id", "course", "assignment", "semester_id"),
+                    "console_output", "console_output_data")
+    );
+
+    private final FileBlobService fileBlobService;
+    private final CompressedColumnMigrationService compressedColumnMigrationService;
+    private final SimilarityService similarityService;
+
+    @Value("${storage.migration.batch-size:500}")
+    private int batchSize;
+
+    public StorageInitializer(FileBlobService fileBlobService, CompressedColumnMigrationService compressedColumnMigrationService,
+                              SimilarityService similarityService) {
+        this.fileBlobService = fileBlobService;
+        this.compressedColumnMigrationService = compressedColumnMigrationService;
+        this.similarityService = similarityService;
+    }
+
+    // Brings rows written by older versions up to the current storage layout, in batches
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateLegacyStorage() {
+        // Entities no longer write the plain TEXT columns, so they must accept NULL before anything is inserted
+        COMPRESSED_COLUMNS.forEach(c -> {
+            if (compressedColumnMigrationService.hasColumn(c.table(), c.legacyColumn())) {
+                compressedColumnMigrationService.allowNulls(c.table(), c.legacyColumn());
+            }
+        });
+
+        // Checkout links are now stored after the student row, by PaymentLinkService
+        compressedColumnMigrationService.allowNulls("students", "payment_link");
+
+        // File bodies still stored inline in submitted_files.file_content -> file_blobs
+        if (compressedColumnMigrationService.hasColumn("submitted_files", "file_content")) {
+            report("submitted files into content-addressed storage",
+                    drain(() -> fileBlobService.migrateLegacyBatch(batchSize)));
+        }
+
+        // Plain TEXT columns -> compressed bytea columns
+        COMPRESSED_COLUMNS.forEach(c -> {
+            if (compressedColumnMigrationService.hasColumn(c.table(), c.legacyColumn())) {
+                report(c.table() + "." + c.legacyColumn() + " values into " + c.dataColumn(),
+                        drain(() -> compressedColumnMigrationService.migrateBatch(
+                                c.table(), c.key(), c.legacyColumn(), c.dataColumn(), batchSize)));
+            }
+        });
+
+        // Grades submitted before near-duplicate indexing -> submission_signatures / similarity_buckets
+        report("submissions into the similarity index", drain(() -> similarityService.indexMissingBatch(batchSize)));
+    }
+
+    private static int drain(IntSupplier batch) {
+        int total = 0;
+        int migrated;
+        do {
+            migrated = batch.getAsInt();
+            total += migrated;
+        } while (migrated > 0);
+        return total;
+    }
+
+    private static void report(String what, int total) {
+        if (total > 0) {
+            System.out.println("✅ Moved " + total + " " + what);
+        }
+    }
+}
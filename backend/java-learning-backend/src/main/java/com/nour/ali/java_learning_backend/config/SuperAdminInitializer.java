@@ -3,16 +3,16 @@ package com.nour.ali.java_learning_backend.config;
 import com.nour.ali.java_learning_backend.model.Admin;
 import com.nour.ali.java_learning_backend.model.AdminRole;
 import com.nour.ali.java_learning_backend.repository.AdminRepository;
+import com.nour.ali.java_learning_backend.service.PasswordHashingService;
 import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.security.crypto.password.PasswordEncoder;
 
 @Configuration
 public class SuperAdminInitializer {
 
     private final AdminRepository adminRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
 
     @Value("${superadmin.name}")
     private String superAdminName;
@@ -20,9 +20,9 @@ public class SuperAdminInitializer {
     @Value("${superadmin.password}")
     private String superAdminPassword;
 
-    public SuperAdminInitializer(AdminRepository adminRepository, PasswordEncoder passwordEncoder) {
+    public SuperAdminInitializer(AdminRepository adminRepository, PasswordHashingService passwordHashingService) {
         this.adminRepository = adminRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingService = passwordHashingService;
     }
 
     @PostConstruct
@@ -30,7 +30,7 @@ public class SuperAdminInitializer {
         if (!adminRepository.existsByName(superAdminName)) {
             Admin admin = new Admin();
             admin.setName(superAdminName);
-            admin.setPassword(passwordEncoder.encode(superAdminPassword));
+            admin.setPassword(passwordHashingService.encode(superAdminPassword));
             admin.setRole(AdminRole.SUPERADMIN); // ✅ enum instead of string
             adminRepository.save(admin);
             System.out.println("✅ Super Admin created: " + superAdminName);
@@ -2,23 +2,31 @@ package com.nour.ali.java_learning_backend.controller;
 
 import com.nour.ali.java_learning_backend.dto.AdminRequestDTO;
 import com.nour.ali.java_learning_backend.dto.PasswordUpdateRequestDTO;
+import com.nour.ali.java_learning_backend.dto.StudentCredentialDTO;
 import com.nour.ali.java_learning_backend.model.Admin;
 import com.nour.ali.java_learning_backend.model.AdminRole;
 import com.nour.ali.java_learning_backend.model.Student;
+import com.nour.ali.java_learning_backend.security.JwtPrincipal;
 import com.nour.ali.java_learning_backend.service.AdminService;
 import com.nour.ali.java_learning_backend.service.JwtService;
 import com.nour.ali.java_learning_backend.service.StudentService;
-import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/admins")
@@ -34,24 +42,27 @@ public class AdminController {
     private StudentService studentService;
 
 
+    // Asynchronous: the request thread is released while the password is checked
     @PostMapping("/validate")
-    public ResponseEntity<?> validateAdmin(@RequestBody AdminRequestDTO request) {
-        var adminOpt = adminService.validateAdmin(request.getName(), request.getPassword());
-        if (adminOpt.isPresent()) {
-            Admin admin = adminOpt.get();
-            String token = jwtService.generateToken(admin.getName(), admin.getRole().name());
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("token", token);
-            return ResponseEntity.ok(response);
-        }
-        throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid credentials");
+    public CompletableFuture<ResponseEntity<?>> validateAdmin(@RequestBody AdminRequestDTO request) {
+        return adminService.validateAdmin(request.getName(), request.getPassword()).thenApply(adminOpt -> {
+            if (adminOpt.isPresent()) {
+                Admin admin = adminOpt.get();
+                String token = jwtService.generateToken(admin.getName(), admin.getRole().name());
+                Map<String, Object> response = new HashMap<>();
+                response.put("success", true);
+                response.put("token", token);
+                return ResponseEntity.ok(response);
+            }
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid credentials");
+        });
     }
 
+    // Asynchronous: the request thread is released while the password is hashed
     @PostMapping("/add")
-    public ResponseEntity<?> addAdmin(@RequestBody AdminRequestDTO request, HttpServletRequest httpRequest) {
+    public CompletableFuture<ResponseEntity<?>> addAdmin(@RequestBody AdminRequestDTO request, @AuthenticationPrincipal JwtPrincipal principal) {
         try {
-            AdminRole role = AdminRole.valueOf(jwtService.extractRole(jwtService.extractToken(httpRequest)));
+            AdminRole role = AdminRole.valueOf(principal.role());
             if (role != AdminRole.SUPERADMIN) {
                 throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Super admin access required");
             }
@@ -63,15 +74,15 @@ public class AdminController {
         String password = request.getPassword();
 
         if (name == null || name.trim().isEmpty()) {
-            return ResponseEntity.badRequest().body(Map.of("message", "Admin name is required"));
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("message", "Admin name is required")));
         }
 
         boolean exists = adminService.existsByName(name);
 
         if (exists) {
-            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
                     "message", "Admin already exists. Use update endpoint if you wish to modify."
-            ));
+            )));
         }
 
         Admin admin = new Admin();
@@ -79,21 +90,19 @@ public class AdminController {
         admin.setPassword(password); // Password will be encoded in service
         admin.setRole(request.getRole() != null ? request.getRole() : AdminRole.ADMIN);
 
-        adminService.addOrUpdateAdmin(admin);
-
-        return ResponseEntity.ok(Map.of(
+        return adminService.addOrUpdateAdmin(admin).thenApply(saved -> ResponseEntity.ok(Map.of(
                 "message", "New admin created",
                 "admin", name,
-                "role", admin.getRole().name()
-        ));
+                "role", saved.getRole().name()
+        )));
     }
 
 
 
     @DeleteMapping("/remove")
-    public ResponseEntity<?> removeAdmin(@RequestBody Map<String, String> request, HttpServletRequest httpRequest) {
+    public ResponseEntity<?> removeAdmin(@RequestBody Map<String, String> request, @AuthenticationPrincipal JwtPrincipal principal) {
         try {
-            AdminRole role = AdminRole.valueOf(jwtService.extractRole(jwtService.extractToken(httpRequest)));
+            AdminRole role = AdminRole.valueOf(principal.role());
             if (role != AdminRole.SUPERADMIN) {
                 throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Super admin access required");
             }
@@ -102,7 +111,7 @@ public class AdminController {
         }
 
         String nameToRemove = request.get("name");
-        String requester = jwtService.extractUsername(jwtService.extractToken(httpRequest));
+        String requester = principal.username();
 
         if (nameToRemove.equals(requester)) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cannot remove yourself");
@@ -132,8 +141,9 @@ public class AdminController {
     }
 
 
+    // Asynchronous: the request thread is released while the password is hashed
     @PostMapping("/update-student-password")
-    public ResponseEntity<?> updateStudentPassword(@RequestBody Map<String, String> request, HttpServletRequest httpRequest) {
+    public CompletableFuture<ResponseEntity<?>> updateStudentPassword(@RequestBody Map<String, String> request, @AuthenticationPrincipal JwtPrincipal principal) {
         String studentId = request.get("studentId");
         String newPassword = request.get("newPassword");
 
@@ -141,58 +151,54 @@ public class AdminController {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Missing studentId or newPassword");
         }
 
-        String adminName;
-        try {
-            adminName = jwtService.extractUsername(jwtService.extractToken(httpRequest));
-        } catch (Exception e) {
+        if (principal == null) {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid token");
         }
+        String adminName = principal.username();
 
         Student student = adminService.getStudentById(studentId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Student not found"));
 
         // ✅ Check if the current admin added at least one enrollment
-        boolean hasEnrollmentByAdmin = student.getEnrollments().stream()
-                .anyMatch(e -> e.getAdmin().equals(adminName));
+        boolean hasEnrollmentByAdmin = studentService.isEnrolledByAdmin(student.getId(), adminName);
 
         if (!hasEnrollmentByAdmin) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "You can only update passwords for your own students");
         }
 
-        adminService.updateStudentPassword(student, newPassword);
-
-        return ResponseEntity.ok(Map.of("message", "Password updated successfully"));
+        return adminService.updateStudentPassword(student, newPassword)
+                .thenApply(done -> ResponseEntity.ok(Map.of("message", "Password updated successfully")));
     }
 
 
     @PostMapping("/updatePassword")
-    public ResponseEntity<?> updatePasswordForAnyUser(@RequestBody PasswordUpdateRequestDTO requestDto, HttpServletRequest httpRequest) {
+    public CompletableFuture<ResponseEntity<?>> updatePasswordForAnyUser(@RequestBody PasswordUpdateRequestDTO requestDto, @AuthenticationPrincipal JwtPrincipal principal) {
         try {
-            String role = jwtService.extractRole(jwtService.extractToken(httpRequest));
+            String role = principal.role();
             if (!"SUPERADMIN".equals(role)) {
-                return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("message", "Superadmin access required"));
+                return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("message", "Superadmin access required")));
             }
 
             if ("student".equalsIgnoreCase(requestDto.getType())) {
                 Optional<Student> optionalStudent = adminService.getStudentById(requestDto.getTargetId());
                 if (optionalStudent.isEmpty()) {
-                    return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", "Student not found"));
+                    return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", "Student not found")));
                 }
-                adminService.updateStudentPassword(optionalStudent.get(), requestDto.getNewPassword());
-                return ResponseEntity.ok(Map.of("message", "Student password updated"));
+                return adminService.updateStudentPassword(optionalStudent.get(), requestDto.getNewPassword())
+                        .thenApply(done -> ResponseEntity.ok(Map.of("message", "Student password updated")));
             } else if ("admin".equalsIgnoreCase(requestDto.getType())) {
                 Optional<Admin> optionalAdmin = adminService.findByName(requestDto.getTargetId());
                 if (optionalAdmin.isEmpty()) {
-                    return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", "Admin not found"));
+                    return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", "Admin not found")));
                 }
-                adminService.updateAdminPassword(optionalAdmin.get(), requestDto.getNewPassword());
-                return ResponseEntity.ok(Map.of("message", "Admin password updated"));
+                return adminService.updateAdminPassword(optionalAdmin.get(), requestDto.getNewPassword())
+                        .thenApply(done -> ResponseEntity.ok(Map.of("message", "Admin password updated")));
             } else {
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("message", "Invalid user type"));
+                return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("message", "Invalid user type")));
             }
 
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", "Unauthorized or invalid token"));
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", "Unauthorized or invalid token")));
         }
     }
 
@@ -201,17 +207,16 @@ public class AdminController {
             @RequestParam String admin,
             @RequestParam String course,
             @RequestParam String semesterId,
-            HttpServletRequest request
+            @AuthenticationPrincipal JwtPrincipal principal
     ) {
-        String token = jwtService.extractToken(request);
-        if (token == null || token.isBlank()) {
+        if (principal == null) {
             return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
         }
 
-        String requester = jwtService.extractUsername(token);
+        String requester = principal.username();
         AdminRole role;
         try {
-            role = AdminRole.valueOf(jwtService.extractRole(token));
+            role = AdminRole.valueOf(principal.role());
         } catch (IllegalArgumentException e) {
             return ResponseEntity.status(403).body(Map.of("error", "Invalid role"));
         }
@@ -232,4 +237,31 @@ public class AdminController {
 
         return ResponseEntity.ok(response);
     }
+
+    // 🔄 New passwords for a whole roster, returned once as CSV. ADMIN: their own students only. SUPERADMIN: any admin's.
+    @PostMapping("/students/passwords/rotate")
+    public ResponseEntity<StreamingResponseBody> rotateStudentPasswords(
+            @RequestParam String admin,
+            @RequestParam String course,
+            @RequestParam String semesterId,
+            @AuthenticationPrincipal JwtPrincipal principal
+    ) {
+        // Errors are thrown rather than returned: this handler can only return a streaming body
+        if (principal == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Unauthorized - Please include a valid token.");
+        }
+        boolean allowed = "SUPERADMIN".equals(principal.role())
+                || ("ADMIN".equals(principal.role()) && principal.username().equals(admin));
+        if (!allowed) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "You can only rotate passwords for your own students");
+        }
+
+        List<StudentCredentialDTO> credentials = studentService.rotatePasswords(admin, course, semesterId);
+        StreamingResponseBody body = out -> studentService.writeCredentialsCsv(credentials, out);
+        return ResponseEntity.ok()
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .cacheControl(CacheControl.noStore())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"credentials.csv\"")
+                .body(body);
+    }
 }
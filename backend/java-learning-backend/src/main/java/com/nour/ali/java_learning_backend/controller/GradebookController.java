@@ -0,0 +1,48 @@
+package com.nour.ali.java_learning_backend.controller;
+
+import com.nour.ali.java_learning_backend.security.JwtPrincipal;
+import com.nour.ali.java_learning_backend.service.GradebookService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/gradebook")
+public class GradebookController {
+
+    private final GradebookService gradebookService;
+
+    @Autowired
+    public GradebookController(GradebookService gradebookService) {
+        this.gradebookService = gradebookService;
+    }
+
+    // 📒 Roster × assignments in one round trip. ADMIN: their own gradebook only. SUPERADMIN: any admin's.
+    @GetMapping
+    public ResponseEntity<?> getGradebook(@RequestParam String admin,
+                                          @RequestParam String course,
+                                          @RequestParam String semesterId,
+                                          @AuthenticationPrincipal JwtPrincipal principal) {
+        if (principal == null) {
+            System.out.println("❌ Missing or invalid token");
+            return ResponseEntity.status(401).body("{\"message\": \"Unauthorized - Please include a valid token.\"}");
+        }
+
+        String requester = principal.username();
+        String role = principal.role();
+        if ("ADMIN".equals(role) && !admin.equals(requester)) {
+            return ResponseEntity.status(403).body(Map.of("message", "Forbidden: you can only view your own gradebook"));
+        }
+        if (!"ADMIN".equals(role) && !"SUPERADMIN".equals(role)) {
+            return ResponseEntity.status(403).body(Map.of("message", "Forbidden: Admin access required"));
+        }
+
+        return ResponseEntity.ok(gradebookService.getGradebook(admin, course, semesterId));
+    }
+}
@@ -43,12 +43,24 @@ public class RolesController {
                         "access", "Public",
                         "description", "Check if admin exists"
                 ),
+                Map.of(
+                        "endpoint", "/admins/students/passwords/rotate",
+                        "method", "POST",
+                        "access", "Admin, Super Admin",
+                        "description", "New passwords for a roster (CSV)"
+                ),
                 Map.of(
                         "endpoint", "/students/add",
                         "method", "POST",
                         "access", "Admin, Super Admin",
                         "description", "Add/update a student"
                 ),
+                Map.of(
+                        "endpoint", "/students/bulk",
+                        "method", "POST",
+                        "access", "Admin, Super Admin",
+                        "description", "Import a roster (CSV or JSON)"
+                ),
                 Map.of(
                         "endpoint", "/students/remove",
                         "method", "DELETE",
@@ -67,12 +79,90 @@ public class RolesController {
                         "access", "Student",
                         "description", "Submit or update a grade"
                 ),
+                Map.of(
+                        "endpoint", "/grades/batch",
+                        "method", "POST",
+                        "access", "Student, Admin, Super Admin",
+                        "description", "Submit many grades at once"
+                ),
+                Map.of(
+                        "endpoint", "/grades",
+                        "method", "PATCH",
+                        "access", "Admin, Super Admin",
+                        "description", "Override a grade or comment"
+                ),
                 Map.of(
                         "endpoint", "/grades",
                         "method", "GET",
                         "access", "Public",
                         "description", "View grades (with filters)"
                 ),
+                Map.of(
+                        "endpoint", "/grades?limit=",
+                        "method", "GET",
+                        "access", "Public",
+                        "description", "Keyset-paginated grades"
+                ),
+                Map.of(
+                        "endpoint", "/grades/ndjson",
+                        "method", "GET",
+                        "access", "Public",
+                        "description", "Stream grades as NDJSON"
+                ),
+                Map.of(
+                        "endpoint", "/grades/history",
+                        "method", "GET",
+                        "access", "Public",
+                        "description", "Every submission attempt"
+                ),
+                Map.of(
+                        "endpoint", "/grades/stream",
+                        "method", "GET",
+                        "access", "Admin, Super Admin",
+                        "description", "Live grade events (SSE)"
+                ),
+                Map.of(
+                        "endpoint", "/grades/{studentId}/{course}/{semesterId}/{assignment}/files/{filename}",
+                        "method", "GET",
+                        "access", "Public",
+                        "description", "One submitted file (ETag, Range)"
+                ),
+                Map.of(
+                        "endpoint", "/grades/summary",
+                        "method", "GET",
+                        "access", "Public",
+                        "description", "Grades without output/files"
+                ),
+                Map.of(
+                        "endpoint", "/grades/export.csv",
+                        "method", "GET",
+                        "access", "Admin, Super Admin",
+                        "description", "Stream grades as CSV"
+                ),
+                Map.of(
+                        "endpoint", "/grades/stats",
+                        "method", "GET",
+                        "access", "Admin, Super Admin",
+                        "description", "Per-assignment score statistics"
+                ),
+                Map.of(
+                        "endpoint", "/grades/cache/stats",
+                        "method", "GET",
+                        "access", "Super Admin",
+                        "description", "Grade query cache counters"
+                ),
+                Map.of(
+                        "endpoint", "/gradebook",
+                        "method", "GET",
+                        "access", "Admin, Super Admin",
+                        "description", "Students × assignments grade matrix"
+                ),
+                Map.of(
+                        "endpoint", "/similarity",
+                        "method", "GET",
+                        "access", "Admin, Super Admin",
+                        "description", "Near-duplicate submission pairs"
+                ),
                 Map.of(
                         "endpoint", "/whoami",
                         "method", "GET",
@@ -0,0 +1,53 @@
+package com.nour.ali.java_learning_backend.controller;
+
+import com.nour.ali.java_learning_backend.security.JwtPrincipal;
+import com.nour.ali.java_learning_backend.service.SimilarityService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/similarity")
+public class SimilarityController {
+
+    private final SimilarityService similarityService;
+
+    @Autowired
+    public SimilarityController(SimilarityService similarityService) {
+        this.similarityService = similarityService;
+    }
+
+    // 🔍 Suspiciously similar submission pairs of one assignment. ADMIN: among their own grades. SUPERADMIN: any admin's, or all.
+    @GetMapping
+    public ResponseEntity<?> getSimilarPairs(@RequestParam String course,
+                                             @RequestParam String semesterId,
+                                             @RequestParam String assignment,
+                                             @RequestParam(required = false) String admin,
+                                             @RequestParam(defaultValue = "0.5") double minScore,
+                                             @RequestParam(defaultValue = "100") int limit,
+                                             @AuthenticationPrincipal JwtPrincipal principal) {
+        if (principal == null) {
+            System.out.println("❌ Missing or invalid token");
+            return ResponseEntity.status(401).body("{\"message\": \"Unauthorized - Please include a valid token.\"}");
+        }
+
+        String requester = principal.username();
+        String role = principal.role();
+        if ("ADMIN".equals(role)) {
+            if (admin != null && !admin.equals(requester)) {
+                return ResponseEntity.status(403).body(Map.of("message", "Forbidden: you can only compare your own students"));
+            }
+            admin = requester;
+        } else if (!"SUPERADMIN".equals(role)) {
+            return ResponseEntity.status(403).body(Map.of("message", "Forbidden: Admin access required"));
+        }
+
+        return ResponseEntity.ok(similarityService.findSimilar(course, semesterId, assignment, admin, minScore, limit));
+    }
+}
@@ -1,26 +1,45 @@
 package com.nour.ali.java_learning_backend.controller;
 
-import com.nour.ali.java_learning_backend.service.StripeService;
-import com.stripe.exception.StripeException;
+import com.nour.ali.java_learning_backend.model.Student;
+import com.nour.ali.java_learning_backend.service.PaymentLinkService;
+import com.nour.ali.java_learning_backend.service.StudentService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/api/stripe")
 public class StripeController {
 
-    private final StripeService stripeService;
+    private final PaymentLinkService paymentLinkService;
+    private final StudentService studentService;
 
     @Autowired
-    public StripeController(StripeService stripeService) {
-        this.stripeService = stripeService;
+    public StripeController(PaymentLinkService paymentLinkService, StudentService studentService) {
+        this.paymentLinkService = paymentLinkService;
+        this.studentService = studentService;
     }
 
+    // The student's stored link while it is still valid; otherwise waits for a new one
     @PostMapping("/create-checkout-session")
-    public Map<String, Object> createCheckoutSession(@RequestParam String studentId) throws StripeException {
-        String checkoutUrl = stripeService.generateCheckoutUrl(studentId);
-        return Map.of("checkoutUrl", checkoutUrl);
+    public ResponseEntity<?> createCheckoutSession(@RequestParam String studentId) {
+        Optional<Student> student = studentService.findById(studentId);
+        if (student.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", "Student not found"));
+        }
+        if (student.get().isPaid()) {
+            return ResponseEntity.badRequest().body(Map.of("message", "Student has already paid"));
+        }
+        try {
+            return ResponseEntity.ok(Map.of("checkoutUrl", paymentLinkService.getOrCreateLink(student.get()).url()));
+        } catch (CompletionException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("message", "Failed to generate payment link"));
+        }
     }
 }
@@ -1,26 +1,31 @@
 package com.nour.ali.java_learning_backend.controller;
 
+import com.nour.ali.java_learning_backend.dto.StudentImportResultDTO;
 import com.nour.ali.java_learning_backend.dto.StudentRequestDTO;
 import com.nour.ali.java_learning_backend.dto.StudentResponseDTO;
 import com.nour.ali.java_learning_backend.model.AdminRole;
 import com.nour.ali.java_learning_backend.model.Enrollment;
 import com.nour.ali.java_learning_backend.model.Student;
 import com.nour.ali.java_learning_backend.repository.EnrollmentRepository;
+import com.nour.ali.java_learning_backend.security.JwtPrincipal;
 import com.nour.ali.java_learning_backend.service.AdminService;
 import com.nour.ali.java_learning_backend.service.JwtService;
-import com.nour.ali.java_learning_backend.service.StripeService;
+import com.nour.ali.java_learning_backend.service.PaymentLinkService;
 import com.nour.ali.java_learning_backend.service.StudentService;
-import com.stripe.exception.StripeException;
-import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/students")
@@ -28,7 +33,7 @@ public class StudentController {
 
     private final StudentService studentService;
     private final JwtService jwtService;
-    private final StripeService stripeService;
+    private final PaymentLinkService paymentLinkService;
     private final AdminService adminService;
     private final EnrollmentRepository enrollmentRepository;
 
@@ -37,53 +42,119 @@ public class StudentController {
     @Autowired
     public StudentController(StudentService studentService,
                              JwtService jwtService,
-                             StripeService stripeService,
+                             PaymentLinkService paymentLinkService,
                              AdminService adminService,
                              EnrollmentRepository enrollmentRepository) {
         this.studentService = studentService;
         this.jwtService = jwtService;
-        this.stripeService = stripeService;
+        this.paymentLinkService = paymentLinkService;
         this.adminService = adminService;
         this.enrollmentRepository = enrollmentRepository; // ✅ added
     }
 
 
+    // Asynchronous: the request thread is released while a new student's password is hashed
     @PostMapping("/add")
-    public ResponseEntity<?> addStudent(@RequestBody StudentRequestDTO dto) {
+    public CompletableFuture<ResponseEntity<?>> addStudent(@RequestBody StudentRequestDTO dto) {
         try {
             // ✅ Allow only if admin exists
             if (dto.getAdmin() == null || dto.getAdmin().trim().isEmpty()) {
-                return ResponseEntity.badRequest().body(Map.of("message", "Admin field is required"));
+                return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("message", "Admin field is required")));
             }
 
             boolean adminExists = adminService.existsByName(dto.getAdmin());
             if (!adminExists) {
-                return ResponseEntity.status(HttpStatus.FORBIDDEN)
-                        .body(Map.of("message", "Invalid admin: professor not found"));
+                return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.FORBIDDEN)
+                        .body(Map.of("message", "Invalid admin: professor not found")));
             }
 
             // ✅ Validate semester field
             if (dto.getSemesterId() == null || dto.getSemesterId().trim().isEmpty()) {
-                return ResponseEntity.badRequest().body(Map.of("message", "Semester ID is required"));
+                return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("message", "Semester ID is required")));
             }
 
             // ✅ Add or update the student
-            var response = studentService.addOrUpdateStudent(dto);
-            return ResponseEntity.ok(response); // includes password + info
+            return studentService.addOrUpdateStudent(dto)
+                    .<ResponseEntity<?>>thenApply(ResponseEntity::ok) // includes password + info
+                    .exceptionally(StudentController::addFailed);
 
-        } catch (ResponseStatusException e) {
-            return ResponseEntity.status(e.getStatusCode()).body(Map.of("message", e.getReason()));
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("message", "Unexpected error occurred"));
+            return CompletableFuture.completedFuture(addFailed(e));
+        }
+    }
+
+    private static ResponseEntity<?> addFailed(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).body(Map.of("message", e.getReason()));
+        }
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("message", "Unexpected error occurred"));
+    }
+
+
+    // Whole roster at once: JSON array of student objects, or CSV with a header row (see parseRosterCsv)
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> importStudents(@RequestBody List<StudentRequestDTO> roster,
+                                            @RequestParam String admin,
+                                            @AuthenticationPrincipal JwtPrincipal principal) {
+        ResponseEntity<?> denied = checkImportAccess(admin, principal);
+        if (denied != null) {
+            return denied;
+        }
+        return runImport(admin, () -> roster);
+    }
+
+    @PostMapping(value = "/bulk", consumes = "text/csv")
+    public ResponseEntity<?> importStudentsCsv(@RequestBody String csv,
+                                               @RequestParam String admin,
+                                               @AuthenticationPrincipal JwtPrincipal principal) {
+        ResponseEntity<?> denied = checkImportAccess(admin, principal);
+        if (denied != null) {
+            return denied;
+        }
+        return runImport(admin, () -> studentService.parseRosterCsv(csv));
+    }
+
+    private ResponseEntity<?> checkImportAccess(String admin, JwtPrincipal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body("{\"message\": \"Unauthorized - Please include a valid token.\"}");
+        }
+        boolean allowed = "SUPERADMIN".equals(principal.role())
+                || ("ADMIN".equals(principal.role()) && principal.username().equals(admin));
+        if (!allowed) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("message", "You can only import students for your own courses"));
+        }
+        if (!adminService.existsByName(admin)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("message", "Invalid admin: professor not found"));
         }
+        return null;
     }
 
+    private ResponseEntity<?> runImport(String admin, Supplier<List<StudentRequestDTO>> roster) {
+        try {
+            List<StudentImportResultDTO> results = studentService.importStudents(admin, roster.get());
+            Map<String, Long> counts = new HashMap<>();
+            results.forEach(r -> counts.merge(r.getStatus(), 1L, Long::sum));
+            return ResponseEntity.ok(Map.of(
+                    "admin", admin,
+                    "created", counts.getOrDefault("created", 0L),
+                    "updated", counts.getOrDefault("updated", 0L),
+                    "failed", counts.getOrDefault("failed", 0L),
+                    "results", results
+            ));
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).body(Map.of("message", e.getReason()));
+        }
+    }
 
     @DeleteMapping("/remove")
-    public ResponseEntity<?> removeEnrollment(@RequestBody StudentRequestDTO dto, HttpServletRequest request) {
+    public ResponseEntity<?> removeEnrollment(@RequestBody StudentRequestDTO dto, @AuthenticationPrincipal JwtPrincipal principal) {
         try {
-            AdminRole role = AdminRole.valueOf(jwtService.extractRole(jwtService.extractToken(request)));
+            AdminRole role = AdminRole.valueOf(principal.role());
             if (role != AdminRole.ADMIN && role != AdminRole.SUPERADMIN) {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("message", "Forbidden: Admin access required"));
             }
@@ -98,38 +169,37 @@ public class StudentController {
         }
     }
 
+    // Asynchronous: the request thread is released while the password is checked
     @PostMapping("/validate")
-    public ResponseEntity<?> validateStudent(@RequestBody StudentRequestDTO dto) {
+    public CompletableFuture<ResponseEntity<?>> validateStudent(@RequestBody StudentRequestDTO dto) {
         // 🔍 1. Check if student exists in DB
         Optional<Student> optionalStudent = studentService.findById(dto.getId());
         if (optionalStudent.isEmpty()) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body(Map.of("success", false, "error", "Student not found"));
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("success", false, "error", "Student not found")));
         }
 
         Student student = optionalStudent.get();
 
-        // 🔐 2. Validate password
-        if (!studentService.validatePassword(dto.getPassword(), student.getPassword())) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body(Map.of("success", false, "error", "Invalid credentials"));
-        }
+        // 🔐 2. Validate password (on the hashing pool)
+        return studentService.checkPassword(student, dto.getPassword())
+                .thenApply(valid -> valid
+                        ? completeLogin(student, dto)
+                        : ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                                .body(Map.of("success", false, "error", "Invalid credentials")));
+    }
 
-        // 💳 3. Always generate a new Stripe link if student is unpaid
+    private ResponseEntity<?> completeLogin(Student student, StudentRequestDTO dto) {
+        // 💳 3. Unpaid: hand out the stored link, or have one made and tell the client to retry shortly
         if (!student.isPaid()) {
-            try {
-                String newLink = stripeService.generateCheckoutUrl(student.getId());
-                student.setPaymentLink(newLink);
-                student.setPaid(false);
-                student.setActive(false);
-                studentService.save(student);
-
+            String link = paymentLinkService.usableLink(student);
+            if (link == null) {
+                paymentLinkService.requestLink(student.getId());
                 return ResponseEntity.status(HttpStatus.FORBIDDEN)
-                        .body(Map.of("success", false, "error", "Payment required", "paymentLink", newLink));
-            } catch (StripeException e) {
-                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                        .body(Map.of("success", false, "error", "Failed to generate payment link"));
+                        .body(Map.of("success", false, "error", "Payment required", "paymentLinkPending", true));
             }
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("success", false, "error", "Payment required", "paymentLink", link));
         }
 
         // 🔓 4. All checks passed: active + paid
@@ -155,21 +225,17 @@ public class StudentController {
     }
 
     @GetMapping("/whoami")
-    public ResponseEntity<?> whoAmI(HttpServletRequest request) {
-        try {
-            String token = jwtService.extractToken(request);
-            String userId = jwtService.extractUsername(token);
-            String role = jwtService.extractRole(token);
-            return ResponseEntity.ok(Map.of("user", userId, "role", role));
-        } catch (Exception e) {
+    public ResponseEntity<?> whoAmI(@AuthenticationPrincipal JwtPrincipal principal) {
+        if (principal == null || principal.role() == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Unauthorized"));
         }
+        return ResponseEntity.ok(Map.of("user", principal.username(), "role", principal.role()));
     }
 
     @PostMapping("/activate")
-    public ResponseEntity<?> activateStudent(@RequestBody Map<String, String> payload, HttpServletRequest request) {
+    public ResponseEntity<?> activateStudent(@RequestBody Map<String, String> payload, @AuthenticationPrincipal JwtPrincipal principal) {
         try {
-            AdminRole role = AdminRole.valueOf(jwtService.extractRole(jwtService.extractToken(request)));
+            AdminRole role = AdminRole.valueOf(principal.role());
             if (role != AdminRole.SUPERADMIN) {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("message", "Forbidden: Superadmin access required"));
             }
@@ -191,9 +257,9 @@ public class StudentController {
     }
 
     @PostMapping("/approve")
-    public ResponseEntity<?> approveStudent(@RequestBody Map<String, String> payload, HttpServletRequest request) {
+    public ResponseEntity<?> approveStudent(@RequestBody Map<String, String> payload, @AuthenticationPrincipal JwtPrincipal principal) {
         try {
-            AdminRole role = AdminRole.valueOf(jwtService.extractRole(jwtService.extractToken(request)));
+            AdminRole role = AdminRole.valueOf(principal.role());
             if (role != AdminRole.SUPERADMIN) {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("message", "Forbidden: Superadmin access required"));
             }
@@ -216,9 +282,9 @@ public class StudentController {
     }
 
     @GetMapping
-    public ResponseEntity<?> getStudentsByAdmin(@RequestParam String admin, HttpServletRequest request) {
+    public ResponseEntity<?> getStudentsByAdmin(@RequestParam String admin, @AuthenticationPrincipal JwtPrincipal principal) {
         try {
-            AdminRole role = AdminRole.valueOf(jwtService.extractRole(jwtService.extractToken(request)));
+            AdminRole role = AdminRole.valueOf(principal.role());
             if (role != AdminRole.ADMIN && role != AdminRole.SUPERADMIN) {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("message", "Forbidden: Admin access required"));
             }
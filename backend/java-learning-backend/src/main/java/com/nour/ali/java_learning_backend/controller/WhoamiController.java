@@ -1,9 +1,8 @@
 package com.nour.ali.java_learning_backend.controller;
 
-import com.nour.ali.java_learning_backend.service.JwtService;
-import jakarta.servlet.http.HttpServletRequest;
-import org.springframework.beans.factory.annotation.Autowired;
+import com.nour.ali.java_learning_backend.security.JwtPrincipal;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -13,18 +12,14 @@ import java.util.Map;
 @RequestMapping("/whoami")
 public class WhoamiController {
 
-    @Autowired
-    private JwtService jwtService;
-
     @GetMapping
-    public ResponseEntity<?> identifyUser(HttpServletRequest request) {
-        String token = jwtService.extractToken(request);
-        if (token == null) {
+    public ResponseEntity<?> identifyUser(@AuthenticationPrincipal JwtPrincipal principal) {
+        if (principal == null || principal.role() == null) {
             return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
         }
 
-        String user = jwtService.extractUsername(token);
-        String role = jwtService.extractRole(token);
+        String user = principal.username();
+        String role = principal.role();
 
         // Optional: validate against known roles
         List<String> allowedRoles = List.of("admin", "superadmin", "student");
@@ -0,0 +1,148 @@
+package com.nour.ali.java_learning_backend.dto;
+
+import java.util.List;
+
+// Scores are percentages for "x/y" grades and the number itself otherwise; grades that are not numeric are not counted
+public class AssignmentStatsDTO {
+
+    private String admin;
+    private String course;
+    private String semesterId;
+    private String assignment;
+    private long count;
+    private Double mean;
+    private Double min;
+    private Double max;
+    private Double median; // this and the percentiles are within 1% of the exact value
+    private Double p25;
+    private Double p75;
+    private Double p90;
+    private List<Long> histogram; // 10 buckets: 0-10, 10-20, ... 90-100
+
+    public AssignmentStatsDTO() {
+    }
+
+    public AssignmentStatsDTO(String admin, String course, String semesterId, String assignment, long count,
+                              Double mean, Double min, Double max, Double median, Double p25, Double p75, Double p90,
+                              List<Long> histogram) {
+        this.admin = admin;
+        this.course = course;
+        this.semesterId = semesterId;
+        this.assignment = assignment;
+        this.count = count;
+        this.mean = mean;
+        this.min = min;
+        this.max = max;
+        this.median = median;
+        this.p25 = p25;
+        this.p75 = p75;
+        this.p90 = p90;
+        this.histogram = histogram;
+    }
+
+    // --- Getters & Setters ---
+
+    public String getAdmin() {
+        return admin;
+    }
+
+    public void setAdmin(String admin) {
+        this.admin = admin;
+    }
+
+    public String getCourse() {
+        return course;
+    }
+
+    public void setCourse(String course) {
+        this.course = course;
+    }
+
+    public String getSemesterId() {
+        return semesterId;
+    }
+
+    public void setSemesterId(String semesterId) {
+        this.semesterId = semesterId;
+    }
+
+    public String getAssignment() {
+        return assignment;
+    }
+
+    public void setAssignment(String assignment) {
+        this.assignment = assignment;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public Double getMean() {
+        return mean;
+    }
+
+    public void setMean(Double mean) {
+        this.mean = mean;
+    }
+
+    public Double getMin() {
+        return min;
+    }
+
+    public void setMin(Double min) {
+        this.min = min;
+    }
+
+    public Double getMax() {
+        return max;
+    }
+
+    public void setMax(Double max) {
+        this.max = max;
+    }
+
+    public Double getMedian() {
+        return median;
+    }
+
+    public void setMedian(Double median) {
+        this.median = median;
+    }
+
+    public Double getP25() {
+        return p25;
+    }
+
+    public void setP25(Double p25) {
+        this.p25 = p25;
+    }
+
+    public Double getP75() {
+        return p75;
+    }
+
+    public void setP75(Double p75) {
+        this.p75 = p75;
+    }
+
+    public Double getP90() {
+        return p90;
+    }
+
+    public void setP90(Double p90) {
+        this.p90 = p90;
+    }
+
+    public List<Long> getHistogram() {
+        return histogram;
+    }
+
+    public void setHistogram(List<Long> histogram) {
+        this.histogram = histogram;
+    }
+}
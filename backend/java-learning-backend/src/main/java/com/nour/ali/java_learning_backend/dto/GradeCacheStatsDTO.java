@@ -0,0 +1,114 @@
+package com.nour.ali.java_learning_backend.dto;
+
+// Counters of the GET /grades result cache since startup; weights are estimated heap bytes
+public class GradeCacheStatsDTO {
+
+    private int entries;
+    private int maxEntries;
+    private long weightBytes;
+    private long maxWeightBytes;
+    private long hits;
+    private long misses;
+    private double hitRate;
+    private long evictions;
+    private long invalidations;
+    private long uncacheable;
+
+    public GradeCacheStatsDTO() {
+    }
+
+    public GradeCacheStatsDTO(int entries, int maxEntries, long weightBytes, long maxWeightBytes,
+                              long hits, long misses, double hitRate,
+                              long evictions, long invalidations, long uncacheable) {
+        this.entries = entries;
+        this.maxEntries = maxEntries;
+        this.weightBytes = weightBytes;
+        this.maxWeightBytes = maxWeightBytes;
+        this.hits = hits;
+        this.misses = misses;
+        this.hitRate = hitRate;
+        this.evictions = evictions;
+        this.invalidations = invalidations;
+        this.uncacheable = uncacheable;
+    }
+
+    public int getEntries() {
+        return entries;
+    }
+
+    public void setEntries(int entries) {
+        this.entries = entries;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public long getWeightBytes() {
+        return weightBytes;
+    }
+
+    public void setWeightBytes(long weightBytes) {
+        this.weightBytes = weightBytes;
+    }
+
+    public long getMaxWeightBytes() {
+        return maxWeightBytes;
+    }
+
+    public void setMaxWeightBytes(long maxWeightBytes) {
+        this.maxWeightBytes = maxWeightBytes;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public void setHits(long hits) {
+        this.hits = hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public void setMisses(long misses) {
+        this.misses = misses;
+    }
+
+    public double getHitRate() {
+        return hitRate;
+    }
+
+    public void setHitRate(double hitRate) {
+        this.hitRate = hitRate;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public void setEvictions(long evictions) {
+        this.evictions = evictions;
+    }
+
+    public long getInvalidations() {
+        return invalidations;
+    }
+
+    public void setInvalidations(long invalidations) {
+        this.invalidations = invalidations;
+    }
+
+    public long getUncacheable() {
+        return uncacheable;
+    }
+
+    public void setUncacheable(long uncacheable) {
+        this.uncacheable = uncacheable;
+    }
+}
@@ -0,0 +1,59 @@
+package com.nour.ali.java_learning_backend.dto;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Opaque keyset cursor over the GradeId columns (studentId, course, assignment, semesterId)
+public class GradeCursor {
+
+    private static final String SEPARATOR = "\u0000";
+
+    private final String studentId;
+    private final String course;
+    private final String assignment;
+    private final String semesterId;
+
+    public GradeCursor(String studentId, String course, String assignment, String semesterId) {
+        this.studentId = studentId;
+        this.course = course;
+        this.assignment = assignment;
+        this.semesterId = semesterId;
+    }
+
+    public String encode() {
+        String raw = String.join(SEPARATOR, studentId, course, assignment, semesterId);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static GradeCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(SEPARATOR, -1);
+            if (parts.length != 4) {
+                throw new IllegalArgumentException("Expected 4 cursor parts but got " + parts.length);
+            }
+            return new GradeCursor(parts[0], parts[1], parts[2], parts[3]);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
+    public String getStudentId() {
+        return studentId;
+    }
+
+    public String getCourse() {
+        return course;
+    }
+
+    public String getAssignment() {
+        return assignment;
+    }
+
+    public String getSemesterId() {
+        return semesterId;
+    }
+}
@@ -0,0 +1,68 @@
+package com.nour.ali.java_learning_backend.dto;
+
+import java.util.Objects;
+
+// Normalized GET /grades filter tuple: blank values mean "not filtered"
+public class GradeFilter {
+
+    private final String studentId;
+    private final String course;
+    private final String assignment;
+    private final String admin;
+    private final String semesterId;
+
+    public GradeFilter(String studentId, String course, String assignment, String admin, String semesterId) {
+        this.studentId = normalize(studentId);
+        this.course = normalize(course);
+        this.assignment = normalize(assignment);
+        this.admin = normalize(admin);
+        this.semesterId = normalize(semesterId);
+    }
+
+    private static String normalize(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    public String getStudentId() {
+        return studentId;
+    }
+
+    public String getCourse() {
+        return course;
+    }
+
+    public String getAssignment() {
+        return assignment;
+    }
+
+    public String getAdmin() {
+        return admin;
+    }
+
+    public String getSemesterId() {
+        return semesterId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof GradeFilter)) return false;
+        GradeFilter that = (GradeFilter) o;
+        return Objects.equals(studentId, that.studentId) &&
+                Objects.equals(course, that.course) &&
+                Objects.equals(assignment, that.assignment) &&
+                Objects.equals(admin, that.admin) &&
+                Objects.equals(semesterId, that.semesterId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(studentId, course, assignment, admin, semesterId);
+    }
+
+    @Override
+    public String toString() {
+        return "GradeFilter{studentId='%s', course='%s', assignment='%s', admin='%s', semesterId='%s'}"
+                .formatted(studentId, course, assignment, admin, semesterId);
+    }
+}
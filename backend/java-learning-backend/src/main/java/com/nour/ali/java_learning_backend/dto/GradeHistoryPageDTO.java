@@ -0,0 +1,34 @@
+package com.nour.ali.java_learning_backend.dto;
+
+import java.util.List;
+
+// Newest attempts first; pass nextCursor back as "cursor" for the next (older) page
+public class GradeHistoryPageDTO {
+
+    private List<GradeSubmissionDTO> items;
+    private String nextCursor; // null when this is the last page
+
+    public GradeHistoryPageDTO() {
+    }
+
+    public GradeHistoryPageDTO(List<GradeSubmissionDTO> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<GradeSubmissionDTO> getItems() {
+        return items;
+    }
+
+    public void setItems(List<GradeSubmissionDTO> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
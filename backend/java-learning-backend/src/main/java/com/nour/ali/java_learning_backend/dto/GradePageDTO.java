@@ -0,0 +1,33 @@
+package com.nour.ali.java_learning_backend.dto;
+
+import java.util.List;
+
+public class GradePageDTO {
+
+    private List<GradeResponseDTO> items;
+    private String nextCursor; // null when this is the last page
+
+    public GradePageDTO() {
+    }
+
+    public GradePageDTO(List<GradeResponseDTO> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<GradeResponseDTO> getItems() {
+        return items;
+    }
+
+    public void setItems(List<GradeResponseDTO> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
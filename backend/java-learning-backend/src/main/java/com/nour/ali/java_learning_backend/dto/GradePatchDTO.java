@@ -0,0 +1,65 @@
+package com.nour.ali.java_learning_backend.dto;
+
+// Body of PATCH /grades: the grade key plus the fields to override; null fields are left as they are
+public class GradePatchDTO {
+
+    private String studentId;
+    private String course;
+    private String assignment;
+    private String semesterId;
+    private String grade;
+    private String comment;
+
+    public GradePatchDTO() {
+    }
+
+    // --- Getters & Setters ---
+
+    public String getStudentId() {
+        return studentId;
+    }
+
+    public void setStudentId(String studentId) {
+        this.studentId = studentId;
+    }
+
+    public String getCourse() {
+        return course;
+    }
+
+    public void setCourse(String course) {
+        this.course = course;
+    }
+
+    public String getAssignment() {
+        return assignment;
+    }
+
+    public void setAssignment(String assignment) {
+        this.assignment = assignment;
+    }
+
+    public String getSemesterId() {
+        return semesterId;
+    }
+
+    public void setSemesterId(String semesterId) {
+        this.semesterId = semesterId;
+    }
+
+    public String getGrade() {
+        return grade;
+    }
+
+    public void setGrade(String grade) {
+        this.grade = grade;
+    }
+
+    public String getComment() {
+        return comment;
+    }
+
+    public void setComment(String comment) {
+        this.comment = comment;
+    }
+}
@@ -9,6 +9,7 @@ public class GradeResponseDTO {
     private String course;
     private String assignment;
     private String grade;
+    private String comment;
     private String consoleOutput;
     private Instant timestamp;
     private String admin;
@@ -20,12 +21,13 @@ public class GradeResponseDTO {
     }
 
     public GradeResponseDTO(String studentId, String course, String assignment, String grade,
-                            String consoleOutput, Instant timestamp, String admin,
+                            String comment, String consoleOutput, Instant timestamp, String admin,
                             String semesterId, Map<String, String> submittedFiles) {
         this.studentId = studentId;
         this.course = course;
         this.assignment = assignment;
         this.grade = grade;
+        this.comment = comment;
         this.consoleOutput = consoleOutput;
         this.timestamp = timestamp;
         this.admin = admin;
@@ -67,6 +69,14 @@ public class GradeResponseDTO {
         this.grade = grade;
     }
 
+    public String getComment() {
+        return comment;
+    }
+
+    public void setComment(String comment) {
+        this.comment = comment;
+    }
+
     public String getConsoleOutput() {
         return consoleOutput;
     }
@@ -0,0 +1,119 @@
+package com.nour.ali.java_learning_backend.dto;
+
+import java.time.Instant;
+import java.util.Map;
+
+// One attempt from GET /grades/history; files are filename -> content hash, empty when the attempt kept its stored files
+public class GradeSubmissionDTO {
+
+    private long seq;
+    private String studentId;
+    private String course;
+    private String assignment;
+    private String semesterId;
+    private String grade;
+    private String consoleOutput;
+    private Instant timestamp;
+    private String admin;
+    private Map<String, String> submittedFiles;
+
+    public GradeSubmissionDTO() {
+    }
+
+    public GradeSubmissionDTO(long seq, String studentId, String course, String assignment, String semesterId,
+                              String grade, String consoleOutput, Instant timestamp, String admin,
+                              Map<String, String> submittedFiles) {
+        this.seq = seq;
+        this.studentId = studentId;
+        this.course = course;
+        this.assignment = assignment;
+        this.semesterId = semesterId;
+        this.grade = grade;
+        this.consoleOutput = consoleOutput;
+        this.timestamp = timestamp;
+        this.admin = admin;
+        this.submittedFiles = submittedFiles;
+    }
+
+    // --- Getters & Setters ---
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public void setSeq(long seq) {
+        this.seq = seq;
+    }
+
+    public String getStudentId() {
+        return studentId;
+    }
+
+    public void setStudentId(String studentId) {
+        this.studentId = studentId;
+    }
+
+    public String getCourse() {
+        return course;
+    }
+
+    public void setCourse(String course) {
+        this.course = course;
+    }
+
+    public String getAssignment() {
+        return assignment;
+    }
+
+    public void setAssignment(String assignment) {
+        this.assignment = assignment;
+    }
+
+    public String getSemesterId() {
+        return semesterId;
+    }
+
+    public void setSemesterId(String semesterId) {
+        this.semesterId = semesterId;
+    }
+
+    public String getGrade() {
+        return grade;
+    }
+
+    public void setGrade(String grade) {
+        this.grade = grade;
+    }
+
+    public String getConsoleOutput() {
+        return consoleOutput;
+    }
+
+    public void setConsoleOutput(String consoleOutput) {
+        this.consoleOutput = consoleOutput;
+    }
+
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(Instant timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public String getAdmin() {
+        return admin;
+    }
+
+    public void setAdmin(String admin) {
+        this.admin = admin;
+    }
+
+    public Map<String, String> getSubmittedFiles() {
+        return submittedFiles;
+    }
+
+    public void setSubmittedFiles(Map<String, String> submittedFiles) {
+        this.submittedFiles = submittedFiles;
+    }
+}
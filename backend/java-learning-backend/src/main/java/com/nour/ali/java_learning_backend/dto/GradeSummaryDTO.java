@@ -0,0 +1,87 @@
+package com.nour.ali.java_learning_backend.dto;
+
+import java.time.Instant;
+
+// Projection of a grade row without consoleOutput or submittedFiles
+public class GradeSummaryDTO {
+
+    private String studentId;
+    private String course;
+    private String assignment;
+    private String semesterId;
+    private String grade;
+    private Instant timestamp;
+    private String admin;
+
+    public GradeSummaryDTO() {
+    }
+
+    public GradeSummaryDTO(String studentId, String course, String assignment, String semesterId,
+                           String grade, Instant timestamp, String admin) {
+        this.studentId = studentId;
+        this.course = course;
+        this.assignment = assignment;
+        this.semesterId = semesterId;
+        this.grade = grade;
+        this.timestamp = timestamp;
+        this.admin = admin;
+    }
+
+    // --- Getters & Setters ---
+
+    public String getStudentId() {
+        return studentId;
+    }
+
+    public void setStudentId(String studentId) {
+        this.studentId = studentId;
+    }
+
+    public String getCourse() {
+        return course;
+    }
+
+    public void setCourse(String course) {
+        this.course = course;
+    }
+
+    public String getAssignment() {
+        return assignment;
+    }
+
+    public void setAssignment(String assignment) {
+        this.assignment = assignment;
+    }
+
+    public String getSemesterId() {
+        return semesterId;
+    }
+
+    public void setSemesterId(String semesterId) {
+        this.semesterId = semesterId;
+    }
+
+    public String getGrade() {
+        return grade;
+    }
+
+    public void setGrade(String grade) {
+        this.grade = grade;
+    }
+
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(Instant timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public String getAdmin() {
+        return admin;
+    }
+
+    public void setAdmin(String admin) {
+        this.admin = admin;
+    }
+}
@@ -0,0 +1,76 @@
+package com.nour.ali.java_learning_backend.dto;
+
+import java.util.List;
+
+// Students × assignments for one admin/course/semester: grades.get(i).get(j) is the grade of
+// students.get(i) on assignments.get(j), null when nothing was submitted
+public class GradebookDTO {
+
+    private String admin;
+    private String course;
+    private String semesterId;
+    private List<String> students;
+    private List<String> assignments;
+    private List<List<String>> grades;
+
+    public GradebookDTO() {
+    }
+
+    public GradebookDTO(String admin, String course, String semesterId,
+                        List<String> students, List<String> assignments, List<List<String>> grades) {
+        this.admin = admin;
+        this.course = course;
+        this.semesterId = semesterId;
+        this.students = students;
+        this.assignments = assignments;
+        this.grades = grades;
+    }
+
+    public String getAdmin() {
+        return admin;
+    }
+
+    public void setAdmin(String admin) {
+        this.admin = admin;
+    }
+
+    public String getCourse() {
+        return course;
+    }
+
+    public void setCourse(String course) {
+        this.course = course;
+    }
+
+    public String getSemesterId() {
+        return semesterId;
+    }
+
+    public void setSemesterId(String semesterId) {
+        this.semesterId = semesterId;
+    }
+
+    public List<String> getStudents() {
+        return students;
+    }
+
+    public void setStudents(List<String> students) {
+        this.students = students;
+    }
+
+    public List<String> getAssignments() {
+        return assignments;
+    }
+
+    public void setAssignments(List<String> assignments) {
+        this.assignments = assignments;
+    }
+
+    public List<List<String>> getGrades() {
+        return grades;
+    }
+
+    public void setGrades(List<List<String>> grades) {
+        this.grades = grades;
+    }
+}
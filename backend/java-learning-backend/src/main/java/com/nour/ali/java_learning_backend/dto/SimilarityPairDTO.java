@@ -0,0 +1,42 @@
+package com.nour.ali.java_learning_backend.dto;
+
+// Two submissions of one assignment and their estimated Jaccard similarity (0..1) over code shingles
+public class SimilarityPairDTO {
+
+    private String studentA;
+    private String studentB;
+    private double score;
+
+    public SimilarityPairDTO() {
+    }
+
+    public SimilarityPairDTO(String studentA, String studentB, double score) {
+        this.studentA = studentA;
+        this.studentB = studentB;
+        this.score = score;
+    }
+
+    public String getStudentA() {
+        return studentA;
+    }
+
+    public void setStudentA(String studentA) {
+        this.studentA = studentA;
+    }
+
+    public String getStudentB() {
+        return studentB;
+    }
+
+    public void setStudentB(String studentB) {
+        this.studentB = studentB;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public void setScore(double score) {
+        this.score = score;
+    }
+}
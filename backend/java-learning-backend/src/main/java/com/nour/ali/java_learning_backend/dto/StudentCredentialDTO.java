@@ -0,0 +1,42 @@
+package com.nour.ali.java_learning_backend.dto;
+
+// A student's newly issued plaintext password; only ever returned once, right after rotation
+public class StudentCredentialDTO {
+
+    private String studentId;
+    private String email;
+    private String password;
+
+    public StudentCredentialDTO() {
+    }
+
+    public StudentCredentialDTO(String studentId, String email, String password) {
+        this.studentId = studentId;
+        this.email = email;
+        this.password = password;
+    }
+
+    public String getStudentId() {
+        return studentId;
+    }
+
+    public void setStudentId(String studentId) {
+        this.studentId = studentId;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+}
@@ -0,0 +1,62 @@
+package com.nour.ali.java_learning_backend.dto;
+
+// Outcome of one roster row of POST /students/bulk; password is only set for newly created students
+public class StudentImportResultDTO {
+
+    private int row;
+    private String studentId;
+    private String status; // created, updated or failed
+    private String password;
+    private String message;
+
+    public StudentImportResultDTO() {
+    }
+
+    public StudentImportResultDTO(int row, String studentId, String status, String password, String message) {
+        this.row = row;
+        this.studentId = studentId;
+        this.status = status;
+        this.password = password;
+        this.message = message;
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    public void setRow(int row) {
+        this.row = row;
+    }
+
+    public String getStudentId() {
+        return studentId;
+    }
+
+    public void setStudentId(String studentId) {
+        this.studentId = studentId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
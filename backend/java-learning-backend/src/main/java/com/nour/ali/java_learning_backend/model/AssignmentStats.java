@@ -0,0 +1,123 @@
+package com.nour.ali.java_learning_backend.model;
+
+import jakarta.persistence.*;
+
+// Running aggregates of the numeric scores of one assignment, maintained by AssignmentStatsService
+@Entity
+@IdClass(AssignmentStatsId.class)
+@Table(name = "assignment_stats")
+public class AssignmentStats {
+
+    public static final int HISTOGRAM_BUCKETS = 10; // 0-10, 10-20, ... 90-100 (clamped)
+    public static final String EMPTY_HISTOGRAM = "0,0,0,0,0,0,0,0,0,0";
+
+    @Id
+    private String admin;
+
+    @Id
+    private String course;
+
+    @Id
+    private String semesterId;
+
+    @Id
+    private String assignment;
+
+    @Column(name = "score_count", nullable = false)
+    private long count;
+
+    @Column(name = "score_sum", nullable = false)
+    private double sum;
+
+    @Column(name = "min_score")
+    private Double min;
+
+    @Column(name = "max_score")
+    private Double max;
+
+    // HISTOGRAM_BUCKETS comma-separated counts
+    @Column(nullable = false)
+    private String histogram;
+
+    // QuantileSketch#toBytes
+    @Column(columnDefinition = "bytea")
+    private byte[] sketch;
+
+    public AssignmentStats() {}
+
+    public AssignmentStats(AssignmentStatsId id) {
+        this.admin = id.getAdmin();
+        this.course = id.getCourse();
+        this.semesterId = id.getSemesterId();
+        this.assignment = id.getAssignment();
+        this.histogram = EMPTY_HISTOGRAM;
+    }
+
+    public AssignmentStatsId getId() {
+        return new AssignmentStatsId(admin, course, semesterId, assignment);
+    }
+
+    public String getAdmin() {
+        return admin;
+    }
+
+    public String getCourse() {
+        return course;
+    }
+
+    public String getSemesterId() {
+        return semesterId;
+    }
+
+    public String getAssignment() {
+        return assignment;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    public void setSum(double sum) {
+        this.sum = sum;
+    }
+
+    public Double getMin() {
+        return min;
+    }
+
+    public void setMin(Double min) {
+        this.min = min;
+    }
+
+    public Double getMax() {
+        return max;
+    }
+
+    public void setMax(Double max) {
+        this.max = max;
+    }
+
+    public String getHistogram() {
+        return histogram;
+    }
+
+    public void setHistogram(String histogram) {
+        this.histogram = histogram;
+    }
+
+    public byte[] getSketch() {
+        return sketch;
+    }
+
+    public void setSketch(byte[] sketch) {
+        this.sketch = sketch;
+    }
+}
@@ -0,0 +1,61 @@
+package com.nour.ali.java_learning_backend.model;
+
+import java.io.Serializable;
+import java.util.Comparator;
+import java.util.Objects;
+
+public class AssignmentStatsId implements Serializable {
+
+    // Lock order for stats rows
+    public static final Comparator<AssignmentStatsId> ORDER = Comparator.comparing(AssignmentStatsId::getAdmin)
+            .thenComparing(AssignmentStatsId::getCourse)
+            .thenComparing(AssignmentStatsId::getSemesterId)
+            .thenComparing(AssignmentStatsId::getAssignment);
+
+    private String admin;
+    private String course;
+    private String semesterId;
+    private String assignment;
+
+    public AssignmentStatsId() {
+    }
+
+    public AssignmentStatsId(String admin, String course, String semesterId, String assignment) {
+        this.admin = admin;
+        this.course = course;
+        this.semesterId = semesterId;
+        this.assignment = assignment;
+    }
+
+    public String getAdmin() {
+        return admin;
+    }
+
+    public String getCourse() {
+        return course;
+    }
+
+    public String getSemesterId() {
+        return semesterId;
+    }
+
+    public String getAssignment() {
+        return assignment;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof AssignmentStatsId)) return false;
+        AssignmentStatsId that = (AssignmentStatsId) o;
+        return Objects.equals(admin, that.admin) &&
+                Objects.equals(course, that.course) &&
+                Objects.equals(semesterId, that.semesterId) &&
+                Objects.equals(assignment, that.assignment);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(admin, course, semesterId, assignment);
+    }
+}
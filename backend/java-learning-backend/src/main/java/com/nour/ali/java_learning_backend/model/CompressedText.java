@@ -0,0 +1,157 @@
+package com.nour.ali.java_learning_backend.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Text stored through {@link CompressedTextConverter}. The column value is one format
+ * byte followed by the payload: {@link #FORMAT_PLAIN} (UTF-8) or {@link #FORMAT_DEFLATE}.
+ * Values read from the database are only inflated the first time {@link #getText()} is called.
+ * Instances are immutable from the outside; entities replace the whole value to change it.
+ */
+public final class CompressedText {
+
+    public static final byte FORMAT_PLAIN = 0;
+    public static final byte FORMAT_DEFLATE = 1;
+
+    private final byte[] encoded; // column bytes as read; null for values created from text
+    private String text; // inflated lazily
+
+    private CompressedText(byte[] encoded, String text) {
+        this.encoded = encoded;
+        this.text = text;
+    }
+
+    public static CompressedText of(String text) {
+        return text != null ? new CompressedText(null, text) : null;
+    }
+
+    public static CompressedText fromColumn(byte[] encoded) {
+        return encoded != null ? new CompressedText(encoded, null) : null;
+    }
+
+    public String getText() {
+        if (text == null && encoded != null) {
+            text = decode(encoded);
+        }
+        return text;
+    }
+
+    // UTF-8 bytes of the text; a stored value is inflated as the stream is read, never all at once
+    public InputStream openStream() {
+        if (encoded == null) {
+            return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+        }
+        if (encoded.length == 0) {
+            return InputStream.nullInputStream();
+        }
+        ByteArrayInputStream payload = new ByteArrayInputStream(encoded, 1, encoded.length - 1);
+        return switch (encoded[0]) {
+            case FORMAT_PLAIN -> payload;
+            case FORMAT_DEFLATE -> new InflaterInputStream(payload);
+            default -> throw new IllegalStateException("Unknown compressed text format: " + encoded[0]);
+        };
+    }
+
+    /**
+     * Column bytes for this value. Values that came from the database are written back
+     * untouched; new text is deflated when it is at least {@code minBytes} long and
+     * deflating actually makes it smaller.
+     */
+    public byte[] encode(int minBytes, int level) {
+        if (encoded != null) {
+            return encoded;
+        }
+        byte[] raw = text.getBytes(StandardCharsets.UTF_8);
+        if (raw.length >= minBytes) {
+            byte[] deflated = deflate(raw, level);
+            if (deflated.length + 1 < raw.length) {
+                return withFormat(FORMAT_DEFLATE, deflated);
+            }
+        }
+        return withFormat(FORMAT_PLAIN, raw);
+    }
+
+    private static byte[] withFormat(byte format, byte[] payload) {
+        byte[] out = new byte[payload.length + 1];
+        out[0] = format;
+        System.arraycopy(payload, 0, out, 1, payload.length);
+        return out;
+    }
+
+    private static String decode(byte[] encoded) {
+        if (encoded.length == 0) {
+            return "";
+        }
+        byte[] payload = Arrays.copyOfRange(encoded, 1, encoded.length);
+        return switch (encoded[0]) {
+            case FORMAT_PLAIN -> new String(payload, StandardCharsets.UTF_8);
+            case FORMAT_DEFLATE -> new String(inflate(payload), StandardCharsets.UTF_8);
+            default -> throw new IllegalStateException("Unknown compressed text format: " + encoded[0]);
+        };
+    }
+
+    private static byte[] deflate(byte[] raw, int level) {
+        Deflater deflater = new Deflater(level);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] payload) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(payload);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length * 4);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("Truncated compressed text");
+                }
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt compressed text", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CompressedText other)) return false;
+        if (encoded != null && other.encoded != null) {
+            return Arrays.equals(encoded, other.encoded);
+        }
+        return getText().equals(other.getText());
+    }
+
+    @Override
+    public int hashCode() {
+        return getText().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return getText();
+    }
+}
@@ -0,0 +1,38 @@
+package com.nour.ali.java_learning_backend.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.hibernate.annotations.Immutable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Opt-in per attribute: @Convert(converter = CompressedTextConverter.class) on a CompressedText
+// field mapped to a bytea column
+@Component
+@Converter
+@Immutable
+public class CompressedTextConverter implements AttributeConverter<CompressedText, byte[]> {
+
+    private final int minBytes;
+    private final int level;
+
+    public CompressedTextConverter(@Value("${storage.compression.min-bytes:256}") int minBytes,
+                                   @Value("${storage.compression.level:6}") int level) {
+        this.minBytes = minBytes;
+        this.level = level;
+    }
+
+    @Override
+    public byte[] convertToDatabaseColumn(CompressedText value) {
+        return value != null ? value.encode(minBytes, level) : null;
+    }
+
+    @Override
+    public CompressedText convertToEntityAttribute(byte[] column) {
+        return CompressedText.fromColumn(column);
+    }
+
+    public byte[] encode(String text) {
+        return convertToDatabaseColumn(CompressedText.of(text));
+    }
+}
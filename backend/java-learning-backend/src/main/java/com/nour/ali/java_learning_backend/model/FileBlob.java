@@ -0,0 +1,75 @@
+package com.nour.ali.java_learning_backend.model;
+
+import jakarta.persistence.*;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+// One row per distinct submitted file body, keyed by its SHA-256 hash
+@Entity
+@Table(name = "file_blobs")
+public class FileBlob {
+
+    @Id
+    @Column(nullable = false, length = 64)
+    private String hash;
+
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(name = "data", columnDefinition = "bytea")
+    private CompressedText content;
+
+    // UTF-8 bytes of the content
+    @Column(nullable = false)
+    private long size;
+
+    // Number of submitted_files rows pointing at this blob; 0 means collectable
+    @Column(nullable = false)
+    private long refCount;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    public FileBlob() {}
+
+    public FileBlob(String hash, String content, long refCount) {
+        this.hash = hash;
+        this.content = CompressedText.of(content);
+        this.size = content != null ? content.getBytes(StandardCharsets.UTF_8).length : 0;
+        this.refCount = refCount;
+        this.createdAt = Instant.now();
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public String getContent() {
+        return content != null ? content.getText() : null;
+    }
+
+    public InputStream openContent() {
+        return content != null ? content.openStream() : InputStream.nullInputStream();
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getRefCount() {
+        return refCount;
+    }
+
+    public void setRefCount(long refCount) {
+        this.refCount = refCount;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    @Override
+    public String toString() {
+        return "FileBlob{hash='%s', size=%d, refCount=%d}".formatted(hash, size, refCount);
+    }
+}
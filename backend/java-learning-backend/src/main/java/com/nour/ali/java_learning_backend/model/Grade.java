@@ -1,13 +1,21 @@
 package com.nour.ali.java_learning_backend.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.DynamicUpdate;
 import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
 
 @Entity
+@DynamicUpdate // a grade override must not write console output back
 @IdClass(GradeId.class)
-@Table(name = "grades")
+@Table(name = "grades", indexes = {
+        // Index set for the common GET /grades filter shapes (see GradeSpecifications)
+        @Index(name = "idx_grades_admin_course_semester", columnList = "admin, course, semester_id"),
+        @Index(name = "idx_grades_student_semester", columnList = "student_id, semester_id"),
+        @Index(name = "idx_grades_course_assignment", columnList = "course, assignment")
+})
 public class Grade {
 
     @Id
@@ -25,14 +33,24 @@ public class Grade {
     @Column(nullable = false, columnDefinition = "TEXT")
     private String grade;
 
+    // Set by PATCH /grades; submissions leave it alone
     @Column(columnDefinition = "TEXT")
-    private String consoleOutput;
+    private String comment;
+
+    // Deflated when large; the legacy console_output TEXT column is migrated by StorageInitializer
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(name = "console_output_data", columnDefinition = "bytea")
+    private CompressedText consoleOutput;
 
     private Instant timestamp;
 
+    // Server time of the last write of any kind (submission or override); timestamp is the client's
+    private Instant updatedAt;
+
     private String admin;
 
     @ElementCollection(fetch = FetchType.LAZY)
+    @BatchSize(size = 100)
     @CollectionTable(
             name = "submitted_files",
             joinColumns = {
@@ -43,8 +61,8 @@ public class Grade {
             }
     )
     @MapKeyColumn(name = "filename")
-    @Column(name = "file_content", columnDefinition = "TEXT")
-    private Map<String, String> submittedFiles = new HashMap<>();
+    @Column(name = "content_hash", length = 64)
+    private Map<String, String> submittedFileHashes = new HashMap<>(); // filename -> FileBlob hash
 
     public Grade() {}
 
@@ -82,12 +100,20 @@ public class Grade {
         this.grade = grade;
     }
 
+    public String getComment() {
+        return comment;
+    }
+
+    public void setComment(String comment) {
+        this.comment = comment;
+    }
+
     public String getConsoleOutput() {
-        return consoleOutput;
+        return consoleOutput != null ? consoleOutput.getText() : null;
     }
 
     public void setConsoleOutput(String consoleOutput) {
-        this.consoleOutput = consoleOutput;
+        this.consoleOutput = CompressedText.of(consoleOutput);
     }
 
     public Instant getTimestamp() {
@@ -98,6 +124,14 @@ public class Grade {
         this.timestamp = timestamp;
     }
 
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
     public String getAdmin() {
         return admin;
     }
@@ -114,12 +148,12 @@ public class Grade {
         this.semesterId = semesterId;
     }
 
-    public Map<String, String> getSubmittedFiles() {
-        return submittedFiles;
+    public Map<String, String> getSubmittedFileHashes() {
+        return submittedFileHashes;
     }
 
-    public void setSubmittedFiles(Map<String, String> submittedFiles) {
-        this.submittedFiles = submittedFiles;
+    public void setSubmittedFileHashes(Map<String, String> submittedFileHashes) {
+        this.submittedFileHashes = submittedFileHashes;
     }
 
     @Override
@@ -129,10 +163,11 @@ public class Grade {
                 ", course='" + course + '\'' +
                 ", assignment='" + assignment + '\'' +
                 ", grade='" + grade + '\'' +
+                ", comment='" + comment + '\'' +
                 ", timestamp=" + timestamp +
                 ", admin='" + admin + '\'' +
                 ", semesterId='" + semesterId + '\'' +
-                ", submittedFiles=" + submittedFiles.keySet() +
+                ", submittedFiles=" + submittedFileHashes.keySet() +
                 '}';
     }
 }
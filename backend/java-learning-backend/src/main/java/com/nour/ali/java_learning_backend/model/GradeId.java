@@ -39,4 +39,20 @@ public class GradeId implements Serializable {
     }
 
     // Getters and setters (if needed)
+
+    public String getStudentId() {
+        return studentId;
+    }
+
+    public String getCourse() {
+        return course;
+    }
+
+    public String getAssignment() {
+        return assignment;
+    }
+
+    public String getSemesterId() {
+        return semesterId;
+    }
 }
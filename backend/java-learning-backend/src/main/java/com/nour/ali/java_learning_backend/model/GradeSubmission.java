@@ -0,0 +1,109 @@
+package com.nour.ali.java_learning_backend.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+// One attempt at an assignment. Rows are only ever inserted; the grades table keeps the latest attempt per GradeId
+@Entity
+@Table(name = "grade_submissions", indexes = {
+        // History is read newest first, per grade or per admin's course
+        @Index(name = "idx_grade_submissions_key_seq", columnList = "student_id, course, assignment, semester_id, seq"),
+        @Index(name = "idx_grade_submissions_admin_course_seq", columnList = "admin, course, semester_id, seq")
+})
+public class GradeSubmission {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "grade_submissions_seq")
+    @SequenceGenerator(name = "grade_submissions_seq", sequenceName = "grade_submissions_seq", allocationSize = 50)
+    private Long seq;
+
+    @Column(nullable = false)
+    private String studentId;
+
+    @Column(nullable = false)
+    private String course;
+
+    @Column(nullable = false)
+    private String assignment;
+
+    @Column(nullable = false)
+    private String semesterId;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String grade;
+
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(name = "console_output_data", columnDefinition = "bytea")
+    private CompressedText consoleOutput;
+
+    private Instant timestamp;
+
+    private String admin;
+
+    // Files sent with this attempt; empty when it kept the files already stored
+    @ElementCollection(fetch = FetchType.LAZY)
+    @BatchSize(size = 100)
+    @CollectionTable(name = "grade_submission_files", joinColumns = @JoinColumn(name = "seq"))
+    @MapKeyColumn(name = "filename")
+    @Column(name = "content_hash", length = 64)
+    private Map<String, String> submittedFileHashes = new HashMap<>(); // filename -> FileBlob hash
+
+    public GradeSubmission() {}
+
+    public GradeSubmission(Grade grade, Map<String, String> submittedFileHashes) {
+        this.studentId = grade.getStudentId();
+        this.course = grade.getCourse();
+        this.assignment = grade.getAssignment();
+        this.semesterId = grade.getSemesterId();
+        this.grade = grade.getGrade();
+        this.consoleOutput = CompressedText.of(grade.getConsoleOutput());
+        this.timestamp = grade.getTimestamp();
+        this.admin = grade.getAdmin();
+        this.submittedFileHashes = new HashMap<>(submittedFileHashes);
+    }
+
+    // --- Getters ---
+
+    public Long getSeq() {
+        return seq;
+    }
+
+    public String getStudentId() {
+        return studentId;
+    }
+
+    public String getCourse() {
+        return course;
+    }
+
+    public String getAssignment() {
+        return assignment;
+    }
+
+    public String getSemesterId() {
+        return semesterId;
+    }
+
+    public String getGrade() {
+        return grade;
+    }
+
+    public String getConsoleOutput() {
+        return consoleOutput != null ? consoleOutput.getText() : null;
+    }
+
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    public String getAdmin() {
+        return admin;
+    }
+
+    public Map<String, String> getSubmittedFileHashes() {
+        return submittedFileHashes;
+    }
+}
@@ -0,0 +1,170 @@
+package com.nour.ali.java_learning_backend.model;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * MinHash signatures of Java sources for near-duplicate detection. Sources are reduced to a
+ * token stream that ignores comments, layout, identifier names and literal values, and every
+ * run of {@link #SHINGLE_TOKENS} tokens is one shingle. Two signatures agree at each position
+ * with probability equal to the Jaccard similarity of their shingle sets. For LSH the signature
+ * is cut into {@link #BANDS} bands of {@link #ROWS} values; pairs sharing a band are candidates,
+ * which catches pairs above roughly (1/BANDS)^(1/ROWS) ≈ 0.42 similarity with high probability.
+ */
+public final class MinHash {
+
+    public static final int BANDS = 32;
+    public static final int ROWS = 4;
+    public static final int SIZE = BANDS * ROWS;
+    public static final int SHINGLE_TOKENS = 8;
+
+    private static final long[] SEEDS = new SplittableRandom(0x5eed_1e55L).longs(SIZE).toArray();
+
+    private static final Set<String> KEYWORDS = Set.of(
+            "abstract", "assert", "boolean", "break", "byte", "case", "catch", "char", "class", "const",
+            "continue", "default", "do", "double", "else", "enum", "extends", "final", "finally", "float",
+            "for", "if", "implements", "import", "instanceof", "int", "interface", "long", "native", "new",
+            "package", "private", "protected", "public", "return", "short", "static", "super", "switch",
+            "synchronized", "this", "throw", "throws", "try", "void", "volatile", "while",
+            "true", "false", "null", "var", "record", "yield");
+
+    private MinHash() {
+    }
+
+    // Signature of all the sources together, or null when they are too short to have a single shingle
+    public static int[] signature(Collection<String> sources) {
+        int[] signature = new int[SIZE];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        boolean any = false;
+        for (String source : sources) {
+            List<String> tokens = tokenize(source);
+            for (int start = 0; start + SHINGLE_TOKENS <= tokens.size(); start++) {
+                long shingle = 0;
+                for (int i = start; i < start + SHINGLE_TOKENS; i++) {
+                    shingle = shingle * 31 + tokens.get(i).hashCode();
+                }
+                for (int i = 0; i < SIZE; i++) {
+                    int h = (int) (mix(shingle ^ SEEDS[i]) >>> 32);
+                    if (h < signature[i]) {
+                        signature[i] = h;
+                    }
+                }
+                any = true;
+            }
+        }
+        return any ? signature : null;
+    }
+
+    // One hash per band; equal band hashes mean the band's ROWS values are (almost surely) equal
+    public static long[] bandHashes(int[] signature) {
+        long[] bands = new long[BANDS];
+        for (int band = 0; band < BANDS; band++) {
+            long h = band;
+            for (int row = 0; row < ROWS; row++) {
+                h = mix(h * 31 + signature[band * ROWS + row]);
+            }
+            bands[band] = h;
+        }
+        return bands;
+    }
+
+    // Estimated Jaccard similarity: the share of positions where the signatures agree
+    public static double similarity(int[] a, int[] b) {
+        int same = 0;
+        for (int i = 0; i < SIZE; i++) {
+            if (a[i] == b[i]) {
+                same++;
+            }
+        }
+        return (double) same / SIZE;
+    }
+
+    public static byte[] toBytes(int[] signature) {
+        ByteBuffer buffer = ByteBuffer.allocate(SIZE * Integer.BYTES);
+        buffer.asIntBuffer().put(signature);
+        return buffer.array();
+    }
+
+    public static int[] fromBytes(byte[] bytes) {
+        if (bytes == null || bytes.length != SIZE * Integer.BYTES) {
+            return null;
+        }
+        int[] signature = new int[SIZE];
+        ByteBuffer.wrap(bytes).asIntBuffer().get(signature);
+        return signature;
+    }
+
+    /**
+     * Keywords and punctuation as written; identifiers become "I", numbers "N", strings "S" and
+     * chars "C". Renaming variables or rewording messages therefore does not hide a copy.
+     */
+    static List<String> tokenize(String source) {
+        List<String> tokens = new ArrayList<>();
+        int n = source.length();
+        int i = 0;
+        while (i < n) {
+            char c = source.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '/' && i + 1 < n && source.charAt(i + 1) == '/') {
+                while (i < n && source.charAt(i) != '\n') {
+                    i++;
+                }
+            } else if (c == '/' && i + 1 < n && source.charAt(i + 1) == '*') {
+                int end = source.indexOf("*/", i + 2);
+                i = end < 0 ? n : end + 2;
+            } else if (c == '"' || c == '\'') {
+                i = skipQuoted(source, i, c);
+                tokens.add(c == '"' ? "S" : "C");
+            } else if (Character.isJavaIdentifierStart(c)) {
+                int start = i;
+                while (i < n && Character.isJavaIdentifierPart(source.charAt(i))) {
+                    i++;
+                }
+                String word = source.substring(start, i);
+                tokens.add(KEYWORDS.contains(word) ? word : "I");
+            } else if (Character.isDigit(c)) {
+                while (i < n && (Character.isLetterOrDigit(source.charAt(i)) || source.charAt(i) == '.' || source.charAt(i) == '_')) {
+                    i++;
+                }
+                tokens.add("N");
+            } else {
+                tokens.add(String.valueOf(c));
+                i++;
+            }
+        }
+        return tokens;
+    }
+
+    // Index just past the closing quote (text blocks end at their closing """)
+    private static int skipQuoted(String source, int start, char quote) {
+        if (quote == '"' && source.startsWith("\"\"\"", start)) {
+            int end = source.indexOf("\"\"\"", start + 3);
+            return end < 0 ? source.length() : end + 3;
+        }
+        int i = start + 1;
+        while (i < source.length()) {
+            char c = source.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (c == quote || c == '\n') {
+                return i + 1;
+            } else {
+                i++;
+            }
+        }
+        return i;
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
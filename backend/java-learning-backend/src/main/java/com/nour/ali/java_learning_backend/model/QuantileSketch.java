@@ -0,0 +1,156 @@
+package com.nour.ali.java_learning_backend.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Log-bucketed quantile sketch (DDSketch style): every value lands in a bucket whose
+ * representative is within {@link #RELATIVE_ACCURACY} of it, so any quantile is answered
+ * with that relative error. Buckets are plain counts, which makes sketches mergeable and
+ * lets a replaced score be removed again. Scores in 0..100 use a few hundred buckets at most.
+ */
+public final class QuantileSketch {
+
+    public static final double RELATIVE_ACCURACY = 0.01;
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    private static final byte FORMAT_VERSION = 1;
+
+    private final NavigableMap<Integer, Long> positive = new TreeMap<>();
+    private final NavigableMap<Integer, Long> negative = new TreeMap<>(); // keyed by the bucket of -value
+    private long zeroCount;
+    private long count;
+
+    public void add(double value) {
+        adjust(value, 1);
+    }
+
+    // Undoes an earlier add of the same value
+    public void remove(double value) {
+        adjust(value, -1);
+    }
+
+    public void merge(QuantileSketch other) {
+        other.positive.forEach((bucket, n) -> positive.merge(bucket, n, Long::sum));
+        other.negative.forEach((bucket, n) -> negative.merge(bucket, n, Long::sum));
+        zeroCount += other.zeroCount;
+        count += other.count;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    // Value at rank q (0..1), or null while the sketch is empty
+    public Double quantile(double q) {
+        if (count == 0) {
+            return null;
+        }
+        long rank = (long) Math.floor(Math.max(0, Math.min(1, q)) * (count - 1));
+        long seen = 0;
+        for (Map.Entry<Integer, Long> bucket : negative.descendingMap().entrySet()) {
+            seen += bucket.getValue();
+            if (seen > rank) {
+                return -valueOf(bucket.getKey());
+            }
+        }
+        seen += zeroCount;
+        if (seen > rank) {
+            return 0.0;
+        }
+        for (Map.Entry<Integer, Long> bucket : positive.entrySet()) {
+            seen += bucket.getValue();
+            if (seen > rank) {
+                return valueOf(bucket.getKey());
+            }
+        }
+        return valueOf(positive.lastKey());
+    }
+
+    public byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 + 12 * (positive.size() + negative.size()));
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeLong(zeroCount);
+            writeBuckets(out, positive);
+            writeBuckets(out, negative);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static QuantileSketch fromBytes(byte[] bytes) {
+        QuantileSketch sketch = new QuantileSketch();
+        if (bytes == null || bytes.length == 0) {
+            return sketch;
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            byte version = in.readByte();
+            if (version != FORMAT_VERSION) {
+                throw new IllegalStateException("Unknown quantile sketch format: " + version);
+            }
+            sketch.zeroCount = in.readLong();
+            sketch.count = sketch.zeroCount + readBuckets(in, sketch.positive) + readBuckets(in, sketch.negative);
+        } catch (IOException e) {
+            throw new IllegalStateException("Corrupt quantile sketch", e);
+        }
+        return sketch;
+    }
+
+    private void adjust(double value, long delta) {
+        if (value > 0) {
+            adjustBucket(positive, bucketOf(value), delta);
+        } else if (value < 0) {
+            adjustBucket(negative, bucketOf(-value), delta);
+        } else {
+            zeroCount += delta;
+        }
+        count += delta;
+    }
+
+    private static void adjustBucket(NavigableMap<Integer, Long> buckets, int bucket, long delta) {
+        long n = buckets.getOrDefault(bucket, 0L) + delta;
+        if (n > 0) {
+            buckets.put(bucket, n);
+        } else {
+            buckets.remove(bucket);
+        }
+    }
+
+    private static int bucketOf(double magnitude) {
+        return (int) Math.ceil(Math.log(magnitude) / LOG_GAMMA);
+    }
+
+    // Midpoint of the bucket in relative terms, so the error is at most RELATIVE_ACCURACY either way
+    private static double valueOf(int bucket) {
+        return 2 * Math.pow(GAMMA, bucket) / (GAMMA + 1);
+    }
+
+    private static void writeBuckets(DataOutputStream out, Map<Integer, Long> buckets) throws IOException {
+        out.writeInt(buckets.size());
+        for (Map.Entry<Integer, Long> bucket : buckets.entrySet()) {
+            out.writeInt(bucket.getKey());
+            out.writeLong(bucket.getValue());
+        }
+    }
+
+    private static long readBuckets(DataInputStream in, Map<Integer, Long> buckets) throws IOException {
+        int size = in.readInt();
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            int bucket = in.readInt();
+            long n = in.readLong();
+            buckets.put(bucket, n);
+            total += n;
+        }
+        return total;
+    }
+}
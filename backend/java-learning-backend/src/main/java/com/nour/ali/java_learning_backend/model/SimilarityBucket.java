@@ -0,0 +1,56 @@
+package com.nour.ali.java_learning_backend.model;
+
+import jakarta.persistence.*;
+
+// LSH index entry: the student's signature hashes to `bucket` in `band` for this assignment
+@Entity
+@IdClass(SimilarityBucketId.class)
+@Table(name = "similarity_buckets", indexes = {
+        @Index(name = "idx_similarity_buckets_grade", columnList = "student_id, course, assignment, semester_id")
+})
+public class SimilarityBucket {
+
+    @Id
+    private String course;
+
+    @Id
+    private String semesterId;
+
+    @Id
+    private String assignment;
+
+    @Id
+    private int band;
+
+    @Id
+    private long bucket;
+
+    @Id
+    private String studentId;
+
+    public SimilarityBucket() {}
+
+    public String getCourse() {
+        return course;
+    }
+
+    public String getSemesterId() {
+        return semesterId;
+    }
+
+    public String getAssignment() {
+        return assignment;
+    }
+
+    public int getBand() {
+        return band;
+    }
+
+    public long getBucket() {
+        return bucket;
+    }
+
+    public String getStudentId() {
+        return studentId;
+    }
+}
@@ -0,0 +1,44 @@
+package com.nour.ali.java_learning_backend.model;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+public class SimilarityBucketId implements Serializable {
+
+    private String course;
+    private String semesterId;
+    private String assignment;
+    private int band;
+    private long bucket;
+    private String studentId;
+
+    public SimilarityBucketId() {
+    }
+
+    public SimilarityBucketId(String course, String semesterId, String assignment, int band, long bucket, String studentId) {
+        this.course = course;
+        this.semesterId = semesterId;
+        this.assignment = assignment;
+        this.band = band;
+        this.bucket = bucket;
+        this.studentId = studentId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof SimilarityBucketId)) return false;
+        SimilarityBucketId that = (SimilarityBucketId) o;
+        return band == that.band &&
+                bucket == that.bucket &&
+                Objects.equals(course, that.course) &&
+                Objects.equals(semesterId, that.semesterId) &&
+                Objects.equals(assignment, that.assignment) &&
+                Objects.equals(studentId, that.studentId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(course, semesterId, assignment, band, bucket, studentId);
+    }
+}
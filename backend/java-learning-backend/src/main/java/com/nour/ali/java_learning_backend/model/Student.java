@@ -22,9 +22,13 @@ public class Student {
     @Column(nullable = false)
     private boolean paid;
 
-    @Column(nullable = false, columnDefinition = "TEXT")
+    // Null until PaymentLinkService has created the checkout session
+    @Column(columnDefinition = "TEXT")
     private String paymentLink;
 
+    @Column
+    private Instant paymentLinkExpiresAt;
+
     @Column(nullable = false)
     private boolean active;
 
@@ -81,6 +85,14 @@ public class Student {
         this.paymentLink = paymentLink;
     }
 
+    public Instant getPaymentLinkExpiresAt() {
+        return paymentLinkExpiresAt;
+    }
+
+    public void setPaymentLinkExpiresAt(Instant paymentLinkExpiresAt) {
+        this.paymentLinkExpiresAt = paymentLinkExpiresAt;
+    }
+
     public boolean isActive() {
         return active;
     }
@@ -121,6 +133,7 @@ public class Student {
                 ", email='" + email + '\'' +
                 ", paid=" + paid +
                 ", paymentLink='" + paymentLink + '\'' +
+                ", paymentLinkExpiresAt=" + paymentLinkExpiresAt +
                 ", active=" + active +
                 ", createdAt=" + createdAt +
                 ", paymentDate=" + paymentDate +
@@ -0,0 +1,48 @@
+package com.nour.ali.java_learning_backend.model;
+
+import jakarta.persistence.*;
+
+// MinHash signature of a grade's current Java files; written by SimilarityService, one row per grade once indexed
+@Entity
+@IdClass(GradeId.class)
+@Table(name = "submission_signatures")
+public class SubmissionSignature {
+
+    @Id
+    private String studentId;
+
+    @Id
+    private String course;
+
+    @Id
+    private String assignment;
+
+    @Id
+    private String semesterId;
+
+    // MinHash#toBytes; null when the grade has no Java source to compare
+    @Column(columnDefinition = "bytea")
+    private byte[] signature;
+
+    public SubmissionSignature() {}
+
+    public String getStudentId() {
+        return studentId;
+    }
+
+    public String getCourse() {
+        return course;
+    }
+
+    public String getAssignment() {
+        return assignment;
+    }
+
+    public String getSemesterId() {
+        return semesterId;
+    }
+
+    public byte[] getSignature() {
+        return signature;
+    }
+}
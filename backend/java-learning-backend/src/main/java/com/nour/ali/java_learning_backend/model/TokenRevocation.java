@@ -0,0 +1,37 @@
+package com.nour.ali.java_learning_backend.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+// Every token for this subject issued before revokedBefore is rejected. Rows outlive that instant by one token lifetime at most
+@Entity
+@Table(name = "token_revocations")
+public class TokenRevocation {
+
+    @Id
+    @Column(nullable = false)
+    private String subject;
+
+    @Column(nullable = false)
+    private Instant revokedBefore;
+
+    public TokenRevocation() {}
+
+    public TokenRevocation(String subject, Instant revokedBefore) {
+        this.subject = subject;
+        this.revokedBefore = revokedBefore;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public Instant getRevokedBefore() {
+        return revokedBefore;
+    }
+
+    public void setRevokedBefore(Instant revokedBefore) {
+        this.revokedBefore = revokedBefore;
+    }
+}
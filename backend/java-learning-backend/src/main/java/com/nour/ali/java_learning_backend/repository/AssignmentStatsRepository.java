@@ -0,0 +1,30 @@
+package com.nour.ali.java_learning_backend.repository;
+
+import com.nour.ali.java_learning_backend.model.AssignmentStats;
+import com.nour.ali.java_learning_backend.model.AssignmentStatsId;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface AssignmentStatsRepository extends JpaRepository<AssignmentStats, AssignmentStatsId>, AssignmentStatsRepositoryCustom {
+
+    List<AssignmentStats> findByAdminAndCourseAndSemesterIdOrderByAssignment(String admin, String course, String semesterId);
+
+    List<AssignmentStats> findByCourseAndSemesterIdOrderByAssignment(String course, String semesterId);
+
+    // One row, locked until the transaction ends
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM AssignmentStats s WHERE s.admin = :admin AND s.course = :course " +
+            "AND s.semesterId = :semesterId AND s.assignment = :assignment")
+    Optional<AssignmentStats> lockRow(@Param("admin") String admin,
+                                      @Param("course") String course,
+                                      @Param("semesterId") String semesterId,
+                                      @Param("assignment") String assignment);
+}
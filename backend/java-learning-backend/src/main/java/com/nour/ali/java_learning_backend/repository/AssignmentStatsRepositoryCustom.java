@@ -0,0 +1,15 @@
+package com.nour.ali.java_learning_backend.repository;
+
+import com.nour.ali.java_learning_backend.model.AssignmentStatsId;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface AssignmentStatsRepositoryCustom {
+
+    // Creates empty rows for the keys that have none yet; concurrent callers never fail on each other's rows
+    void insertMissing(Collection<AssignmentStatsId> ids);
+
+    // Raw grade strings currently stored for one stats key
+    List<String> findGrades(AssignmentStatsId id);
+}
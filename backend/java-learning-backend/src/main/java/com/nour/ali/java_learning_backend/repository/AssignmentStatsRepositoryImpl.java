@@ -0,0 +1,49 @@
+package com.nour.ali.java_learning_backend.repository;
+
+import com.nour.ali.java_learning_backend.model.AssignmentStats;
+import com.nour.ali.java_learning_backend.model.AssignmentStatsId;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Collection;
+import java.util.List;
+
+public class AssignmentStatsRepositoryImpl implements AssignmentStatsRepositoryCustom {
+
+    private static final String INSERT_MISSING_POSTGRES =
+            "INSERT INTO assignment_stats (admin, course, semester_id, assignment, score_count, score_sum, histogram) " +
+            "VALUES (?, ?, ?, ?, 0, 0, ?) ON CONFLICT DO NOTHING";
+    private static final String INSERT_MISSING_H2 =
+            "MERGE INTO assignment_stats t USING (VALUES (CAST(? AS VARCHAR(255)), CAST(? AS VARCHAR(255)), " +
+            "CAST(? AS VARCHAR(255)), CAST(? AS VARCHAR(255)), CAST(? AS VARCHAR(255)))) " +
+            "AS s(admin, course, semester_id, assignment, histogram) " +
+            "ON t.admin = s.admin AND t.course = s.course AND t.semester_id = s.semester_id AND t.assignment = s.assignment " +
+            "WHEN NOT MATCHED THEN INSERT (admin, course, semester_id, assignment, score_count, score_sum, histogram) " +
+            "VALUES (s.admin, s.course, s.semester_id, s.assignment, 0, 0, s.histogram)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SqlDialect dialect;
+
+    public AssignmentStatsRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dialect = SqlDialect.detect(jdbcTemplate);
+    }
+
+    @Override
+    public void insertMissing(Collection<AssignmentStatsId> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = ids.stream()
+                .sorted(AssignmentStatsId.ORDER)
+                .map(id -> new Object[]{id.getAdmin(), id.getCourse(), id.getSemesterId(), id.getAssignment(), AssignmentStats.EMPTY_HISTOGRAM})
+                .toList();
+        dialect.batchUpsert(jdbcTemplate, dialect == SqlDialect.H2 ? INSERT_MISSING_H2 : INSERT_MISSING_POSTGRES, rows);
+    }
+
+    @Override
+    public List<String> findGrades(AssignmentStatsId id) {
+        return jdbcTemplate.queryForList("SELECT grade FROM grades WHERE admin = ? AND course = ? " +
+                        "AND semester_id = ? AND assignment = ?", String.class,
+                id.getAdmin(), id.getCourse(), id.getSemesterId(), id.getAssignment());
+    }
+}
@@ -2,8 +2,12 @@ package com.nour.ali.java_learning_backend.repository;
 
 import com.nour.ali.java_learning_backend.model.Enrollment;
 import com.nour.ali.java_learning_backend.model.EnrollmentId;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,11 +16,19 @@ public interface EnrollmentRepository extends JpaRepository<Enrollment, Enrollme
     // Check if a student is already enrolled in a course+semester
     boolean existsById(EnrollmentId id);
 
-    // Get all enrollments by a given admin
+    // Get all enrollments by a given admin (student fetched in the same query)
+    @EntityGraph(attributePaths = "student")
     List<Enrollment> findByAdmin(String admin);
 
     List<Enrollment> findByStudentIdAndAdmin(String studentId, String admin);
 
+    boolean existsByIdStudentIdAndAdmin(String studentId, String admin);
+
+    List<Enrollment> findByAdminAndIdStudentIdIn(String admin, Collection<String> studentIds);
+
+    @Query("SELECT DISTINCT e.id.studentId FROM Enrollment e WHERE e.admin = :admin AND e.id.studentId IN :studentIds")
+    List<String> findStudentIdsByAdminAndStudentIdIn(@Param("admin") String admin, @Param("studentIds") Collection<String> studentIds);
+
     // Optional: Delete a specific enrollment
     void deleteById(EnrollmentId id);
 
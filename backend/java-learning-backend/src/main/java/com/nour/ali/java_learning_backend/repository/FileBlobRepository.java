@@ -0,0 +1,22 @@
+package com.nour.ali.java_learning_backend.repository;
+
+import com.nour.ali.java_learning_backend.model.FileBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface FileBlobRepository extends JpaRepository<FileBlob, String>, FileBlobRepositoryCustom {
+
+    @Query("SELECT b.hash FROM FileBlob b WHERE b.hash IN :hashes")
+    List<String> findExistingHashes(@Param("hashes") Collection<String> hashes);
+
+    @Modifying
+    @Query("DELETE FROM FileBlob b WHERE b.refCount <= 0")
+    int deleteUnreferenced();
+}
@@ -0,0 +1,19 @@
+package com.nour.ali.java_learning_backend.repository;
+
+import com.nour.ali.java_learning_backend.model.FileBlob;
+
+import java.util.List;
+import java.util.Set;
+
+public interface FileBlobRepositoryCustom {
+
+    /**
+     * Adds each blob's refCount to its row, in hash order. Blobs that carry content are inserted
+     * when there is no row yet; the others are plain UPDATEs, and their hashes are returned when
+     * no row matched.
+     */
+    Set<String> applyRefCountDeltas(List<FileBlob> deltas);
+
+    // Inserts each blob with its refCount, or adds that refCount to the row if a concurrent submission got there first
+    void insertOrIncrement(List<FileBlob> blobs);
+}
@@ -0,0 +1,94 @@
+package com.nour.ali.java_learning_backend.repository;
+
+import com.nour.ali.java_learning_backend.model.CompressedTextConverter;
+import com.nour.ali.java_learning_backend.model.FileBlob;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class FileBlobRepositoryImpl implements FileBlobRepositoryCustom {
+
+    private static final String ADJUST_REF_COUNT = "UPDATE file_blobs SET ref_count = ref_count + ? WHERE hash = ?";
+    private static final String INSERT_OR_INCREMENT_POSTGRES =
+            "INSERT INTO file_blobs (hash, data, size, ref_count, created_at) VALUES (?, ?, ?, ?, ?) " +
+            "ON CONFLICT (hash) DO UPDATE SET ref_count = file_blobs.ref_count + EXCLUDED.ref_count";
+    private static final String INSERT_OR_INCREMENT_H2 =
+            "MERGE INTO file_blobs t USING (VALUES (CAST(? AS VARCHAR(64)), CAST(? AS VARBINARY), CAST(? AS BIGINT), " +
+            "CAST(? AS BIGINT), CAST(? AS TIMESTAMP WITH TIME ZONE))) AS s(hash, data, size, ref_count, created_at) " +
+            "ON t.hash = s.hash " +
+            "WHEN MATCHED THEN UPDATE SET ref_count = t.ref_count + s.ref_count " +
+            "WHEN NOT MATCHED THEN INSERT (hash, data, size, ref_count, created_at) " +
+            "VALUES (s.hash, s.data, s.size, s.ref_count, s.created_at)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CompressedTextConverter compressedTextConverter;
+    private final SqlDialect dialect;
+
+    public FileBlobRepositoryImpl(JdbcTemplate jdbcTemplate, CompressedTextConverter compressedTextConverter) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.compressedTextConverter = compressedTextConverter;
+        this.dialect = SqlDialect.detect(jdbcTemplate);
+    }
+
+    @Override
+    public Set<String> applyRefCountDeltas(List<FileBlob> deltas) {
+        // Every row is touched in hash order, so concurrent submissions sharing blobs can't deadlock.
+        // Consecutive blobs of the same kind still go out as one batch.
+        List<FileBlob> sorted = deltas.stream().sorted(Comparator.comparing(FileBlob::getHash)).toList();
+        Set<String> missing = new HashSet<>();
+        int runStart = 0;
+        for (int i = 1; i <= sorted.size(); i++) {
+            boolean runEnds = i == sorted.size() || isInsert(sorted.get(i)) != isInsert(sorted.get(runStart));
+            if (!runEnds) {
+                continue;
+            }
+            List<FileBlob> run = sorted.subList(runStart, i);
+            if (isInsert(run.get(0))) {
+                insertOrIncrement(run);
+            } else {
+                int[] updated = jdbcTemplate.batchUpdate(ADJUST_REF_COUNT,
+                        run.stream().map(b -> new Object[]{b.getRefCount(), b.getHash()}).toList());
+                for (int j = 0; j < updated.length; j++) {
+                    if (updated[j] == 0) {
+                        missing.add(run.get(j).getHash());
+                    }
+                }
+            }
+            runStart = i;
+        }
+        return missing;
+    }
+
+    private static boolean isInsert(FileBlob blob) {
+        return blob.getContent() != null;
+    }
+
+    @Override
+    public void insertOrIncrement(List<FileBlob> blobs) {
+        if (blobs.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(blobs.size());
+        blobs.stream()
+                .sorted(Comparator.comparing(FileBlob::getHash))
+                .forEach(blob -> rows.add(new Object[]{
+                        blob.getHash(),
+                        compressedTextConverter.encode(blob.getContent()),
+                        blob.getSize(),
+                        blob.getRefCount(),
+                        OffsetDateTime.ofInstant(blob.getCreatedAt(), ZoneOffset.UTC)
+                }));
+        if (dialect == SqlDialect.H2) {
+            // Incrementing is not idempotent, so H2 retries row by row (see SqlDialect.batchUpsert)
+            rows.forEach(row -> dialect.batchUpsert(jdbcTemplate, INSERT_OR_INCREMENT_H2, List.<Object[]>of(row)));
+        } else {
+            jdbcTemplate.batchUpdate(INSERT_OR_INCREMENT_POSTGRES, rows);
+        }
+    }
+}
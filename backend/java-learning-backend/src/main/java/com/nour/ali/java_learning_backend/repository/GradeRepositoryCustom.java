@@ -0,0 +1,67 @@
+package com.nour.ali.java_learning_backend.repository;
+
+import com.nour.ali.java_learning_backend.dto.GradeExportColumn;
+import com.nour.ali.java_learning_backend.dto.GradeFilter;
+import com.nour.ali.java_learning_backend.dto.GradeSummaryDTO;
+import com.nour.ali.java_learning_backend.dto.GradebookDTO;
+import com.nour.ali.java_learning_backend.model.Grade;
+import com.nour.ali.java_learning_backend.model.GradeId;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+public interface GradeRepositoryCustom {
+
+    // How many grades a filter matches and when the last of them changed; null lastChange when there are none
+    record ScopeVersion(long count, Instant lastChange) {}
+
+    // First `limit` grades in GradeId order
+    List<Grade> findFirst(Specification<Grade> spec, int limit);
+
+    // Forward-only cursor with a bounded fetch size; consume inside a transaction and close
+    Stream<Grade> streamAll(Specification<Grade> spec);
+
+    // Key, grade, timestamp and admin only; consoleOutput and submitted_files are never touched
+    List<GradeSummaryDTO> findSummaries(Specification<Grade> spec);
+
+    // Plain JDBC rows with just `columns`, in GradeId order, from a forward-only cursor with a fixed fetch size.
+    // Must run inside a transaction so Postgres keeps the cursor server-side instead of buffering the result.
+    void exportRows(GradeFilter filter, List<GradeExportColumn> columns, RowCallbackHandler handler);
+
+    // One COUNT/MAX over the filtered grades; cheap enough to answer conditional GETs before the real query
+    ScopeVersion findVersion(GradeFilter filter);
+
+    // Enrolled students × submitted assignments in one enrollments LEFT JOIN grades query
+    GradebookDTO findGradebook(String admin, String course, String semesterId);
+
+    // Insert-or-update of the grade rows in one batched statement (ON CONFLICT on Postgres, MERGE on H2).
+    // The row lock this takes also serializes concurrent writers of the same GradeId until commit.
+    void upsertGrades(List<Grade> grades);
+
+    // Current key, grade, timestamp and admin of those of the given grades that exist
+    Map<GradeId, GradeSummaryDTO> findSummaries(Collection<GradeId> ids);
+
+    // Same as findSummaries, but each existing row is locked (in GradeId order) until the transaction ends
+    Map<GradeId, GradeSummaryDTO> lockSummaries(Collection<GradeId> ids);
+
+    // Inserts the grades that do not exist yet and returns their ids; rows a concurrent writer inserted first
+    // are skipped once that writer commits. Callers hold the locks of the inserted rows until commit.
+    Set<GradeId> insertAbsent(List<Grade> grades);
+
+    // GradeId -> (filename -> content hash) for the stored files of the given grades
+    Map<GradeId, Map<String, String>> findFileHashes(Collection<GradeId> ids);
+
+    // Content hash of one stored file, or null when the grade has no such file
+    String findFileHash(GradeId id, String filename);
+
+    // One batched insert-or-update for every (grade, filename) -> hash given
+    void upsertFiles(Map<GradeId, Map<String, String>> fileHashes);
+
+    void deleteFiles(Map<GradeId, Set<String>> filenames);
+}
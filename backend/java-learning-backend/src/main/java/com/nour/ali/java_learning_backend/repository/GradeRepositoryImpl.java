@@ -0,0 +1,357 @@
+package com.nour.ali.java_learning_backend.repository;
+
+import com.nour.ali.java_learning_backend.dto.GradeExportColumn;
+import com.nour.ali.java_learning_backend.dto.GradeFilter;
+import com.nour.ali.java_learning_backend.dto.GradeSummaryDTO;
+import com.nour.ali.java_learning_backend.dto.GradebookDTO;
+import com.nour.ali.java_learning_backend.model.CompressedTextConverter;
+import com.nour.ali.java_learning_backend.model.Grade;
+import com.nour.ali.java_learning_backend.model.GradeId;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class GradeRepositoryImpl implements GradeRepositoryCustom {
+
+    private static final int STREAM_FETCH_SIZE = 500;
+    private static final int EXPORT_FETCH_SIZE = 1000;
+
+    private static final String GRADEBOOK_CELLS =
+            "SELECT e.student_id, g.assignment, g.grade FROM enrollments e " +
+            "LEFT JOIN grades g ON g.student_id = e.student_id AND g.course = e.course " +
+            "AND g.semester_id = e.semester_id AND g.admin = e.admin " +
+            "WHERE e.admin = ? AND e.course = ? AND e.semester_id = ? " +
+            "ORDER BY e.student_id, g.assignment";
+
+    private static final String GRADE_COLUMNS = "student_id, course, assignment, semester_id, grade, console_output_data, timestamp, admin, updated_at";
+    private static final String UPSERT_GRADE_POSTGRES =
+            "INSERT INTO grades (" + GRADE_COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (student_id, course, assignment, semester_id) DO UPDATE SET " +
+            "grade = EXCLUDED.grade, console_output_data = EXCLUDED.console_output_data, " +
+            "timestamp = EXCLUDED.timestamp, admin = EXCLUDED.admin, updated_at = EXCLUDED.updated_at";
+    private static final String UPSERT_GRADE_H2 =
+            "MERGE INTO grades (" + GRADE_COLUMNS + ") KEY (student_id, course, assignment, semester_id) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_ABSENT_GRADES_POSTGRES =
+            "INSERT INTO grades (" + GRADE_COLUMNS + ") VALUES %s " +
+            "ON CONFLICT (student_id, course, assignment, semester_id) DO NOTHING " +
+            "RETURNING student_id, course, assignment, semester_id";
+    private static final String INSERT_GRADE =
+            "INSERT INTO grades (" + GRADE_COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String SUMMARY_COLUMNS = "student_id, course, assignment, semester_id, grade, timestamp, admin";
+
+    private static final String KEY_IN_LISTS = "student_id IN (:studentIds) AND course IN (:courses) " +
+            "AND assignment IN (:assignments) AND semester_id IN (:semesterIds)";
+
+    private static final String FILE_COLUMNS = "student_id, course, assignment, semester_id, filename, content_hash";
+    private static final String UPSERT_FILE_POSTGRES =
+            "INSERT INTO submitted_files (" + FILE_COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (student_id, course, assignment, semester_id, filename) DO UPDATE SET content_hash = EXCLUDED.content_hash";
+    private static final String UPSERT_FILE_H2 =
+            "MERGE INTO submitted_files (" + FILE_COLUMNS + ") KEY (student_id, course, assignment, semester_id, filename) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String DELETE_FILE =
+            "DELETE FROM submitted_files WHERE student_id = ? AND course = ? AND assignment = ? AND semester_id = ? AND filename = ?";
+
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final CompressedTextConverter compressedTextConverter;
+    private final SqlDialect dialect;
+
+    public GradeRepositoryImpl(EntityManager entityManager, JdbcTemplate jdbcTemplate,
+                               CompressedTextConverter compressedTextConverter) {
+        this.entityManager = entityManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.compressedTextConverter = compressedTextConverter;
+        this.dialect = SqlDialect.detect(jdbcTemplate);
+    }
+
+    @Override
+    public List<Grade> findFirst(Specification<Grade> spec, int limit) {
+        return entityManager.createQuery(orderedQuery(spec))
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public Stream<Grade> streamAll(Specification<Grade> spec) {
+        return entityManager.createQuery(orderedQuery(spec))
+                .setHint(AvailableHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE)
+                .getResultStream();
+    }
+
+    @Override
+    public List<GradeSummaryDTO> findSummaries(Specification<Grade> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<GradeSummaryDTO> query = cb.createQuery(GradeSummaryDTO.class);
+        Root<Grade> root = query.from(Grade.class);
+        query.select(cb.construct(GradeSummaryDTO.class,
+                root.get("studentId"), root.get("course"), root.get("assignment"), root.get("semesterId"),
+                root.get("grade"), root.get("timestamp"), root.get("admin")));
+        applyWhere(spec, root, query, cb);
+        query.orderBy(keyOrder(root, cb));
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    @Override
+    public void exportRows(GradeFilter filter, List<GradeExportColumn> columns, RowCallbackHandler handler) {
+        List<Object> args = new ArrayList<>();
+        String sql = "SELECT " + columns.stream().map(GradeExportColumn::getSqlColumn).collect(Collectors.joining(", ")) +
+                " FROM grades" + where(filter, args) + " ORDER BY student_id, course, assignment, semester_id";
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(EXPORT_FETCH_SIZE);
+            for (int i = 0; i < args.size(); i++) {
+                statement.setObject(i + 1, args.get(i));
+            }
+            return statement;
+        }, handler);
+    }
+
+    @Override
+    public ScopeVersion findVersion(GradeFilter filter) {
+        List<Object> args = new ArrayList<>();
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) AS grade_count, MAX(COALESCE(updated_at, timestamp)) AS last_change " +
+                "FROM grades" + where(filter, args), (rs, i) -> {
+            Timestamp lastChange = rs.getTimestamp("last_change");
+            return new ScopeVersion(rs.getLong("grade_count"), lastChange != null ? lastChange.toInstant() : null);
+        }, args.toArray());
+    }
+
+    // " WHERE ..." for the supplied filters only (or nothing), binding their values into args
+    private static String where(GradeFilter filter, List<Object> args) {
+        List<String> where = new ArrayList<>();
+        addEquals(where, args, "student_id", filter.getStudentId());
+        addEquals(where, args, "course", filter.getCourse());
+        addEquals(where, args, "assignment", filter.getAssignment());
+        addEquals(where, args, "admin", filter.getAdmin());
+        addEquals(where, args, "semester_id", filter.getSemesterId());
+        return where.isEmpty() ? "" : " WHERE " + String.join(" AND ", where);
+    }
+
+    private static void addEquals(List<String> where, List<Object> args, String column, String value) {
+        if (value != null) {
+            where.add(column + " = ?");
+            args.add(value);
+        }
+    }
+
+    @Override
+    public GradebookDTO findGradebook(String admin, String course, String semesterId) {
+        // Rows come back grouped by student; students without any grade have one row with a null assignment
+        Map<String, Map<String, String>> byStudent = new LinkedHashMap<>();
+        SortedSet<String> assignments = new TreeSet<>();
+        jdbcTemplate.query(GRADEBOOK_CELLS, rs -> {
+            Map<String, String> row = byStudent.computeIfAbsent(rs.getString("student_id"), k -> new HashMap<>());
+            String assignment = rs.getString("assignment");
+            if (assignment != null) {
+                row.put(assignment, rs.getString("grade"));
+                assignments.add(assignment);
+            }
+        }, admin, course, semesterId);
+
+        List<String> columns = List.copyOf(assignments);
+        List<List<String>> grades = new ArrayList<>(byStudent.size());
+        byStudent.values().forEach(row -> grades.add(columns.stream().map(row::get).toList()));
+        return new GradebookDTO(admin, course, semesterId, List.copyOf(byStudent.keySet()), columns, grades);
+    }
+
+    @Override
+    public void upsertGrades(List<Grade> grades) {
+        dialect.batchUpsert(jdbcTemplate, dialect == SqlDialect.H2 ? UPSERT_GRADE_H2 : UPSERT_GRADE_POSTGRES,
+                grades.stream().map(this::gradeRow).toList());
+    }
+
+    @Override
+    public Set<GradeId> insertAbsent(List<Grade> grades) {
+        Set<GradeId> inserted = new HashSet<>();
+        if (grades.isEmpty()) {
+            return inserted;
+        }
+        if (dialect == SqlDialect.H2) {
+            // H2 has no ON CONFLICT DO NOTHING; a failed INSERT there does not abort the transaction
+            for (Grade grade : grades) {
+                try {
+                    jdbcTemplate.update(INSERT_GRADE, gradeRow(grade));
+                    inserted.add(new GradeId(grade.getStudentId(), grade.getCourse(), grade.getAssignment(), grade.getSemesterId()));
+                } catch (DuplicateKeyException e) {
+                    // inserted by a concurrent writer first
+                }
+            }
+            return inserted;
+        }
+        // One multi-row statement whose RETURNING lists exactly the rows that were new (9 parameters per grade)
+        String values = String.join(", ", Collections.nCopies(grades.size(), "(?, ?, ?, ?, ?, ?, ?, ?, ?)"));
+        jdbcTemplate.query(INSERT_ABSENT_GRADES_POSTGRES.formatted(values),
+                (RowCallbackHandler) rs -> inserted.add(new GradeId(rs.getString("student_id"), rs.getString("course"),
+                        rs.getString("assignment"), rs.getString("semester_id"))),
+                grades.stream().flatMap(grade -> Stream.of(gradeRow(grade))).toArray());
+        return inserted;
+    }
+
+    private Object[] gradeRow(Grade g) {
+        return new Object[]{
+                g.getStudentId(), g.getCourse(), g.getAssignment(), g.getSemesterId(), g.getGrade(),
+                compressedTextConverter.encode(g.getConsoleOutput()),
+                g.getTimestamp() != null ? OffsetDateTime.ofInstant(g.getTimestamp(), ZoneOffset.UTC) : null,
+                g.getAdmin(),
+                g.getUpdatedAt() != null ? OffsetDateTime.ofInstant(g.getUpdatedAt(), ZoneOffset.UTC) : null
+        };
+    }
+
+    @Override
+    public Map<GradeId, GradeSummaryDTO> findSummaries(Collection<GradeId> ids) {
+        Map<GradeId, GradeSummaryDTO> summaries = new HashMap<>();
+        if (ids.isEmpty()) {
+            return summaries;
+        }
+        Set<GradeId> wanted = new HashSet<>(ids);
+        namedJdbcTemplate.query("SELECT " + SUMMARY_COLUMNS + " FROM grades WHERE " + KEY_IN_LISTS, keyInListParams(ids), rs -> {
+            GradeSummaryDTO summary = toSummary(rs);
+            GradeId id = new GradeId(summary.getStudentId(), summary.getCourse(), summary.getAssignment(), summary.getSemesterId());
+            if (wanted.contains(id)) {
+                summaries.put(id, summary);
+            }
+        });
+        return summaries;
+    }
+
+    @Override
+    public Map<GradeId, GradeSummaryDTO> lockSummaries(Collection<GradeId> ids) {
+        Map<GradeId, GradeSummaryDTO> summaries = new HashMap<>();
+        if (ids.isEmpty()) {
+            return summaries;
+        }
+        // Exact keys as row values: the IN-lists of findSummaries would lock every combination of them
+        List<GradeId> distinct = ids.stream().distinct().toList();
+        String keys = String.join(", ", Collections.nCopies(distinct.size(), "(?, ?, ?, ?)"));
+        jdbcTemplate.query("SELECT " + SUMMARY_COLUMNS + " FROM grades " +
+                        "WHERE (student_id, course, assignment, semester_id) IN (" + keys + ") " +
+                        "ORDER BY student_id, course, assignment, semester_id FOR UPDATE",
+                (RowCallbackHandler) rs -> {
+                    GradeSummaryDTO summary = toSummary(rs);
+                    summaries.put(new GradeId(summary.getStudentId(), summary.getCourse(), summary.getAssignment(),
+                            summary.getSemesterId()), summary);
+                },
+                distinct.stream().flatMap(id -> Stream.of(id.getStudentId(), id.getCourse(), id.getAssignment(),
+                        id.getSemesterId())).toArray());
+        return summaries;
+    }
+
+    private static GradeSummaryDTO toSummary(ResultSet rs) throws SQLException {
+        Timestamp timestamp = rs.getTimestamp("timestamp");
+        return new GradeSummaryDTO(rs.getString("student_id"), rs.getString("course"), rs.getString("assignment"),
+                rs.getString("semester_id"), rs.getString("grade"), timestamp != null ? timestamp.toInstant() : null,
+                rs.getString("admin"));
+    }
+
+    @Override
+    public Map<GradeId, Map<String, String>> findFileHashes(Collection<GradeId> ids) {
+        Map<GradeId, Map<String, String>> hashes = new HashMap<>();
+        if (ids.isEmpty()) {
+            return hashes;
+        }
+        Set<GradeId> wanted = new HashSet<>(ids);
+        namedJdbcTemplate.query("SELECT " + FILE_COLUMNS + " FROM submitted_files WHERE " + KEY_IN_LISTS,
+                keyInListParams(ids), rs -> {
+            GradeId id = new GradeId(rs.getString("student_id"), rs.getString("course"),
+                    rs.getString("assignment"), rs.getString("semester_id"));
+            if (wanted.contains(id)) {
+                hashes.computeIfAbsent(id, k -> new HashMap<>()).put(rs.getString("filename"), rs.getString("content_hash"));
+            }
+        });
+        return hashes;
+    }
+
+    @Override
+    public String findFileHash(GradeId id, String filename) {
+        List<String> hashes = jdbcTemplate.queryForList("SELECT content_hash FROM submitted_files " +
+                        "WHERE student_id = ? AND course = ? AND assignment = ? AND semester_id = ? AND filename = ?",
+                String.class, id.getStudentId(), id.getCourse(), id.getAssignment(), id.getSemesterId(), filename);
+        return hashes.isEmpty() ? null : hashes.get(0);
+    }
+
+    @Override
+    public void upsertFiles(Map<GradeId, Map<String, String>> fileHashes) {
+        List<Object[]> rows = new ArrayList<>();
+        fileHashes.forEach((id, files) -> files.forEach((filename, hash) -> rows.add(new Object[]{
+                id.getStudentId(), id.getCourse(), id.getAssignment(), id.getSemesterId(), filename, hash})));
+        if (!rows.isEmpty()) {
+            dialect.batchUpsert(jdbcTemplate, dialect == SqlDialect.H2 ? UPSERT_FILE_H2 : UPSERT_FILE_POSTGRES, rows);
+        }
+    }
+
+    @Override
+    public void deleteFiles(Map<GradeId, Set<String>> filenames) {
+        List<Object[]> rows = new ArrayList<>();
+        filenames.forEach((id, names) -> names.forEach(filename -> rows.add(new Object[]{
+                id.getStudentId(), id.getCourse(), id.getAssignment(), id.getSemesterId(), filename})));
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_FILE, rows);
+        }
+    }
+
+    // One IN list per key column is a superset of the requested keys; callers keep only exact matches
+    private static Map<String, Object> keyInListParams(Collection<GradeId> ids) {
+        return Map.of(
+                "studentIds", ids.stream().map(GradeId::getStudentId).distinct().toList(),
+                "courses", ids.stream().map(GradeId::getCourse).distinct().toList(),
+                "assignments", ids.stream().map(GradeId::getAssignment).distinct().toList(),
+                "semesterIds", ids.stream().map(GradeId::getSemesterId).distinct().toList());
+    }
+
+    private CriteriaQuery<Grade> orderedQuery(Specification<Grade> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Grade> query = cb.createQuery(Grade.class);
+        Root<Grade> root = query.from(Grade.class);
+        applyWhere(spec, root, query, cb);
+        query.orderBy(keyOrder(root, cb));
+        return query;
+    }
+
+    private static void applyWhere(Specification<Grade> spec, Root<Grade> root, CriteriaQuery<?> query, CriteriaBuilder cb) {
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+    }
+
+    private static List<Order> keyOrder(Root<Grade> root, CriteriaBuilder cb) {
+        return GradeSpecifications.KEY_ORDER.stream()
+                .map(order -> cb.asc(root.get(order.getProperty())))
+                .toList();
+    }
+}
@@ -0,0 +1,64 @@
+package com.nour.ali.java_learning_backend.repository;
+
+import com.nour.ali.java_learning_backend.dto.GradeCursor;
+import com.nour.ali.java_learning_backend.dto.GradeFilter;
+import com.nour.ali.java_learning_backend.model.Grade;
+import com.nour.ali.java_learning_backend.model.GradeSubmission;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Builds grade queries from only the filters that were actually supplied, so the
+// database sees e.g. "admin = ? AND course = ? AND semester_id = ?" and can pick a matching index
+public final class GradeSpecifications {
+
+    public static final Sort KEY_ORDER = Sort.by("studentId", "course", "assignment", "semesterId");
+
+    private GradeSpecifications() {
+    }
+
+    // Grades and grade submissions share these attribute names
+    public static <T> Specification<T> matching(GradeFilter filter) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            addEquals(predicates, root, cb, "studentId", filter.getStudentId());
+            addEquals(predicates, root, cb, "course", filter.getCourse());
+            addEquals(predicates, root, cb, "assignment", filter.getAssignment());
+            addEquals(predicates, root, cb, "admin", filter.getAdmin());
+            addEquals(predicates, root, cb, "semesterId", filter.getSemesterId());
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    // Keyset predicate: rows strictly after the cursor in KEY_ORDER
+    public static Specification<Grade> after(GradeCursor cursor) {
+        return (root, query, cb) -> cb.or(
+                cb.greaterThan(root.get("studentId"), cursor.getStudentId()),
+                cb.and(cb.equal(root.get("studentId"), cursor.getStudentId()), cb.or(
+                        cb.greaterThan(root.get("course"), cursor.getCourse()),
+                        cb.and(cb.equal(root.get("course"), cursor.getCourse()), cb.or(
+                                cb.greaterThan(root.get("assignment"), cursor.getAssignment()),
+                                cb.and(cb.equal(root.get("assignment"), cursor.getAssignment()),
+                                        cb.greaterThan(root.get("semesterId"), cursor.getSemesterId()))
+                        ))
+                ))
+        );
+    }
+
+    // History keyset predicate: attempts older than the cursor's sequence number
+    public static Specification<GradeSubmission> before(long seq) {
+        return (root, query, cb) -> cb.lessThan(root.get("seq"), seq);
+    }
+
+    private static void addEquals(List<Predicate> predicates, Root<?> root, CriteriaBuilder cb,
+                                  String attribute, String value) {
+        if (value != null) {
+            predicates.add(cb.equal(root.get(attribute), value));
+        }
+    }
+}
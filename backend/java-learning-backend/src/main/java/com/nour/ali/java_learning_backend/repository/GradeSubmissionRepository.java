@@ -0,0 +1,11 @@
+package com.nour.ali.java_learning_backend.repository;
+
+import com.nour.ali.java_learning_backend.model.GradeSubmission;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.stereotype.Repository;
+
+// Append-only: attempts are saved and read, never updated
+@Repository
+public interface GradeSubmissionRepository extends JpaRepository<GradeSubmission, Long>, JpaSpecificationExecutor<GradeSubmission> {
+}
@@ -0,0 +1,36 @@
+package com.nour.ali.java_learning_backend.repository;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+// The databases hand-written upserts have to support: PostgreSQL in production, H2 for the dev profile
+public enum SqlDialect {
+
+    POSTGRES,
+    H2;
+
+    public static SqlDialect detect(JdbcTemplate jdbcTemplate) {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        return "H2".equalsIgnoreCase(product) ? H2 : POSTGRES;
+    }
+
+    /**
+     * Runs an idempotent upsert batch. H2's MERGE is not atomic against a concurrent insert of the
+     * same key, so there the loser gets a duplicate key error; running the batch again then finds
+     * the row. Postgres' ON CONFLICT never needs this.
+     */
+    public int[] batchUpsert(JdbcTemplate jdbcTemplate, String sql, List<Object[]> rows) {
+        try {
+            return jdbcTemplate.batchUpdate(sql, rows);
+        } catch (DuplicateKeyException e) {
+            if (this != H2) {
+                throw e;
+            }
+            return jdbcTemplate.batchUpdate(sql, rows);
+        }
+    }
+}
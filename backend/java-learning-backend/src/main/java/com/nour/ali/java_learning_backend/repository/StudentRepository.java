@@ -2,19 +2,38 @@ package com.nour.ali.java_learning_backend.repository;
 
 import com.nour.ali.java_learning_backend.model.Student;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface StudentRepository extends JpaRepository<Student, String> {
+public interface StudentRepository extends JpaRepository<Student, String>, StudentRepositoryCustom {
 
     Optional<Student> findByEmail(String email);
 
+    List<Student> findByEmailIn(Collection<String> emails);
+
     @Query("SELECT s FROM Student s JOIN Enrollment e ON s.id = e.id.studentId " +
             "WHERE e.admin = :admin AND e.id.course = :course AND e.id.semesterId = :semesterId")
     List<Student> findAllByAdminAndCourseAndSemester(String admin, String course, String semesterId);
 
+    // Compare-and-set, so a rehash finishing late never overwrites a password changed meanwhile
+    @Modifying
+    @Transactional
+    @Query("UPDATE Student s SET s.password = :newPassword WHERE s.id = :id AND s.password = :oldPassword")
+    int replacePassword(@Param("id") String id, @Param("oldPassword") String oldPassword, @Param("newPassword") String newPassword);
+
+    // Skips students who paid while the link was being created
+    @Modifying
+    @Transactional
+    @Query("UPDATE Student s SET s.paymentLink = :link, s.paymentLinkExpiresAt = :expiresAt WHERE s.id = :id AND s.paid = false")
+    int updatePaymentLink(@Param("id") String id, @Param("link") String link, @Param("expiresAt") Instant expiresAt);
+
 }
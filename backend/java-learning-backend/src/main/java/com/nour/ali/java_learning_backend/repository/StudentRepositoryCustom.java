@@ -0,0 +1,20 @@
+package com.nour.ali.java_learning_backend.repository;
+
+import com.nour.ali.java_learning_backend.model.EnrollmentId;
+import com.nour.ali.java_learning_backend.model.Student;
+
+import java.util.List;
+import java.util.Map;
+
+public interface StudentRepositoryCustom {
+
+    // studentId -> already hashed password, written as one JDBC batch in one transaction
+    void updatePasswords(Map<String, String> passwordsById);
+
+    /**
+     * Writes an imported roster in one transaction: new students, changed emails (studentId -> email)
+     * and enrollments with admin. Like a single add, an enrollment replaces the student's enrollment
+     * in the same course with this admin, whatever its semester. Each step is one JDBC batch.
+     */
+    void saveRoster(List<Student> created, Map<String, String> emailsById, String admin, List<EnrollmentId> enrollments);
+}
@@ -0,0 +1,57 @@
+package com.nour.ali.java_learning_backend.repository;
+
+import com.nour.ali.java_learning_backend.model.EnrollmentId;
+import com.nour.ali.java_learning_backend.model.Student;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+public class StudentRepositoryImpl implements StudentRepositoryCustom {
+
+    private static final String UPDATE_PASSWORD = "UPDATE students SET password = ? WHERE id = ?";
+    private static final String INSERT_STUDENT = "INSERT INTO students " +
+            "(id, email, password, paid, active, payment_link, created_at, payment_date) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_EMAIL = "UPDATE students SET email = ? WHERE id = ?";
+    // The semester_id match also clears another admin's row with the same key, which the insert then takes over
+    private static final String DELETE_ENROLLMENT =
+            "DELETE FROM enrollments WHERE student_id = ? AND course = ? AND (admin = ? OR semester_id = ?)";
+    private static final String INSERT_ENROLLMENT =
+            "INSERT INTO enrollments (student_id, course, semester_id, admin) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public StudentRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    @Transactional
+    public void updatePasswords(Map<String, String> passwordsById) {
+        jdbcTemplate.batchUpdate(UPDATE_PASSWORD, passwordsById.entrySet().stream()
+                .map(e -> new Object[]{e.getValue(), e.getKey()})
+                .toList());
+    }
+
+    @Override
+    @Transactional
+    public void saveRoster(List<Student> created, Map<String, String> emailsById, String admin, List<EnrollmentId> enrollments) {
+        jdbcTemplate.batchUpdate(INSERT_STUDENT, created.stream()
+                .map(s -> new Object[]{s.getId(), s.getEmail(), s.getPassword(), s.isPaid(), s.isActive(), s.getPaymentLink(),
+                        OffsetDateTime.ofInstant(s.getCreatedAt(), ZoneOffset.UTC),
+                        s.getPaymentDate() != null ? OffsetDateTime.ofInstant(s.getPaymentDate(), ZoneOffset.UTC) : null})
+                .toList());
+        jdbcTemplate.batchUpdate(UPDATE_EMAIL, emailsById.entrySet().stream()
+                .map(e -> new Object[]{e.getValue(), e.getKey()})
+                .toList());
+        jdbcTemplate.batchUpdate(DELETE_ENROLLMENT, enrollments.stream()
+                .map(id -> new Object[]{id.getStudentId(), id.getCourse(), admin, id.getSemesterId()})
+                .toList());
+        jdbcTemplate.batchUpdate(INSERT_ENROLLMENT, enrollments.stream()
+                .map(id -> new Object[]{id.getStudentId(), id.getCourse(), id.getSemesterId(), admin})
+                .toList());
+    }
+}
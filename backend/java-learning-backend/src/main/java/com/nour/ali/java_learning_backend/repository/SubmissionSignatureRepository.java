@@ -0,0 +1,10 @@
+package com.nour.ali.java_learning_backend.repository;
+
+import com.nour.ali.java_learning_backend.model.GradeId;
+import com.nour.ali.java_learning_backend.model.SubmissionSignature;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SubmissionSignatureRepository extends JpaRepository<SubmissionSignature, GradeId>, SubmissionSignatureRepositoryCustom {
+}
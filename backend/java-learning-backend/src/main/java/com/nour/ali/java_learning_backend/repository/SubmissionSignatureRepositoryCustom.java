@@ -0,0 +1,27 @@
+package com.nour.ali.java_learning_backend.repository;
+
+import com.nour.ali.java_learning_backend.model.GradeId;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface SubmissionSignatureRepositoryCustom {
+
+    // Two students of one assignment who share at least one LSH band bucket
+    record Candidate(String studentA, String studentB, int sharedBands) {}
+
+    // Replaces the signature and LSH buckets of each grade; a null signature leaves it indexed with nothing to compare.
+    // Callers hold the grades' row locks, so a plain delete + insert cannot race another indexer of the same grade.
+    void replace(Map<GradeId, int[]> signatures);
+
+    // Candidate pairs from the LSH index, most shared bands first; admin (optional) limits both sides to that admin's grades.
+    // Buckets holding more than maxBucketSize students are ignored.
+    List<Candidate> findCandidates(String course, String semesterId, String assignment, String admin, int maxBucketSize, int limit);
+
+    // studentId -> signature for the given students of one assignment
+    Map<String, int[]> findSignatures(String course, String semesterId, String assignment, Collection<String> studentIds);
+
+    // Grades that have submitted files but no signature yet (written before indexing existed)
+    List<GradeId> findUnindexed(int limit);
+}
@@ -0,0 +1,121 @@
+package com.nour.ali.java_learning_backend.repository;
+
+import com.nour.ali.java_learning_backend.model.GradeId;
+import com.nour.ali.java_learning_backend.model.MinHash;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class SubmissionSignatureRepositoryImpl implements SubmissionSignatureRepositoryCustom {
+
+    private static final int IN_CLAUSE_CHUNK = 500;
+    private static final String KEY_MATCHES = "student_id = ? AND course = ? AND assignment = ? AND semester_id = ?";
+    private static final String SAME_GRADE = "%1$s.student_id = %2$s.student_id AND %1$s.course = %2$s.course " +
+            "AND %1$s.assignment = %2$s.assignment AND %1$s.semester_id = %2$s.semester_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    public SubmissionSignatureRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    @Override
+    public void replace(Map<GradeId, int[]> signatures) {
+        if (signatures.isEmpty()) {
+            return;
+        }
+        List<Object[]> keys = new ArrayList<>(signatures.size());
+        List<Object[]> rows = new ArrayList<>(signatures.size());
+        List<Object[]> buckets = new ArrayList<>();
+        signatures.forEach((id, signature) -> {
+            keys.add(new Object[]{id.getStudentId(), id.getCourse(), id.getAssignment(), id.getSemesterId()});
+            rows.add(new Object[]{id.getStudentId(), id.getCourse(), id.getAssignment(), id.getSemesterId(),
+                    signature != null ? MinHash.toBytes(signature) : null});
+            if (signature != null) {
+                long[] bands = MinHash.bandHashes(signature);
+                for (int band = 0; band < bands.length; band++) {
+                    buckets.add(new Object[]{id.getCourse(), id.getSemesterId(), id.getAssignment(), band, bands[band], id.getStudentId()});
+                }
+            }
+        });
+        jdbcTemplate.batchUpdate("DELETE FROM similarity_buckets WHERE " + KEY_MATCHES, keys);
+        jdbcTemplate.batchUpdate("DELETE FROM submission_signatures WHERE " + KEY_MATCHES, keys);
+        jdbcTemplate.batchUpdate("INSERT INTO submission_signatures (student_id, course, assignment, semester_id, signature) " +
+                "VALUES (?, ?, ?, ?, ?)", rows);
+        jdbcTemplate.batchUpdate("INSERT INTO similarity_buckets (course, semester_id, assignment, band, bucket, student_id) " +
+                "VALUES (?, ?, ?, ?, ?, ?)", buckets);
+    }
+
+    @Override
+    public List<Candidate> findCandidates(String course, String semesterId, String assignment, String admin,
+                                          int maxBucketSize, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("course", course)
+                .addValue("semesterId", semesterId)
+                .addValue("assignment", assignment)
+                .addValue("maxBucketSize", maxBucketSize)
+                .addValue("limit", limit);
+        String adminJoins = "";
+        if (admin != null) {
+            adminJoins = " JOIN grades ga ON " + SAME_GRADE.formatted("ga", "a") + " AND ga.admin = :admin" +
+                    " JOIN grades gb ON " + SAME_GRADE.formatted("gb", "b") + " AND gb.admin = :admin";
+            params.addValue("admin", admin);
+        }
+        // Bucket sizes are counted once up front; a bucket of n students would otherwise add n² / 2 rows to the join
+        return namedJdbcTemplate.query("SELECT a.student_id AS student_a, b.student_id AS student_b, COUNT(*) AS shared " +
+                        "FROM (SELECT band, bucket FROM similarity_buckets WHERE course = :course " +
+                        "AND semester_id = :semesterId AND assignment = :assignment " +
+                        "GROUP BY band, bucket HAVING COUNT(*) <= :maxBucketSize) k " +
+                        "JOIN similarity_buckets a ON a.course = :course AND a.semester_id = :semesterId " +
+                        "AND a.assignment = :assignment AND a.band = k.band AND a.bucket = k.bucket " +
+                        "JOIN similarity_buckets b ON b.course = a.course " +
+                        "AND b.semester_id = a.semester_id AND b.assignment = a.assignment AND b.band = a.band " +
+                        "AND b.bucket = a.bucket AND b.student_id > a.student_id" + adminJoins +
+                        " GROUP BY a.student_id, b.student_id ORDER BY shared DESC, student_a, student_b LIMIT :limit",
+                params, (rs, i) -> new Candidate(rs.getString("student_a"), rs.getString("student_b"), rs.getInt("shared")));
+    }
+
+    @Override
+    public Map<String, int[]> findSignatures(String course, String semesterId, String assignment, Collection<String> studentIds) {
+        Map<String, int[]> signatures = new HashMap<>();
+        if (studentIds.isEmpty()) {
+            return signatures;
+        }
+        List<String> all = new ArrayList<>(studentIds);
+        for (int i = 0; i < all.size(); i += IN_CLAUSE_CHUNK) {
+            namedJdbcTemplate.query("SELECT student_id, signature FROM submission_signatures WHERE course = :course " +
+                            "AND semester_id = :semesterId AND assignment = :assignment AND student_id IN (:studentIds)",
+                    new MapSqlParameterSource()
+                            .addValue("course", course)
+                            .addValue("semesterId", semesterId)
+                            .addValue("assignment", assignment)
+                            .addValue("studentIds", all.subList(i, Math.min(i + IN_CLAUSE_CHUNK, all.size()))),
+                    rs -> {
+                        int[] signature = MinHash.fromBytes(rs.getBytes("signature"));
+                        if (signature != null) {
+                            signatures.put(rs.getString("student_id"), signature);
+                        }
+                    });
+        }
+        return signatures;
+    }
+
+    @Override
+    public List<GradeId> findUnindexed(int limit) {
+        return jdbcTemplate.query("SELECT g.student_id, g.course, g.assignment, g.semester_id FROM grades g " +
+                        "WHERE EXISTS (SELECT 1 FROM submitted_files f WHERE " + SAME_GRADE.formatted("f", "g") + ") " +
+                        "AND NOT EXISTS (SELECT 1 FROM submission_signatures s WHERE " + SAME_GRADE.formatted("s", "g") + ") " +
+                        "ORDER BY g.student_id, g.course, g.assignment, g.semester_id LIMIT ?",
+                (rs, i) -> new GradeId(rs.getString("student_id"), rs.getString("course"),
+                        rs.getString("assignment"), rs.getString("semester_id")),
+                limit);
+    }
+}
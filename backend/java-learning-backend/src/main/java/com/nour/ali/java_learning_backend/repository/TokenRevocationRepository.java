@@ -0,0 +1,20 @@
+package com.nour.ali.java_learning_backend.repository;
+
+import com.nour.ali.java_learning_backend.model.TokenRevocation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface TokenRevocationRepository extends JpaRepository<TokenRevocation, String> {
+
+    List<TokenRevocation> findByRevokedBeforeAfter(Instant cutoff);
+
+    // Revocations older than the token lifetime can no longer match a live token
+    @Modifying
+    @Query("DELETE FROM TokenRevocation r WHERE r.revokedBefore < :cutoff")
+    int deleteOlderThan(@Param("cutoff") Instant cutoff);
+}
@@ -1,56 +1,60 @@
 package com.nour.ali.java_learning_backend.security;
 
 import com.nour.ali.java_learning_backend.service.JwtService;
-import io.jsonwebtoken.ExpiredJwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.Collections;
+import java.util.List;
 
+/**
+ * The only place a bearer token is verified. A valid token becomes a {@link JwtPrincipal}
+ * Authentication (role as ROLE_ authority); an invalid one is ignored, so the request simply
+ * reaches the controller without a principal.
+ */
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    private final JwtService jwtService;
+
     @Autowired
-    private JwtService jwtService;
+    public JwtAuthenticationFilter(JwtService jwtService) {
+        this.jwtService = jwtService;
+    }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
                                     HttpServletResponse response,
                                     FilterChain filterChain) throws ServletException, IOException {
 
-        final String authHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
+        String method = request.getMethod();
+        System.out.println("➡️ Incoming request: " + method + " " + request.getRequestURI());
 
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+        // ✅ Let CORS handle preflight fully
+        if ("OPTIONS".equalsIgnoreCase(method)) {
             filterChain.doFilter(request, response);
             return;
         }
 
-        final String token = authHeader.substring(7);
-
-        try {
-            if (jwtService.validateToken(token)) {
-                String user = jwtService.extractUsername(token);
-
-                UsernamePasswordAuthenticationToken authToken =
-                        new UsernamePasswordAuthenticationToken(
-                                user,
-                                null,
-                                Collections.emptyList()
-                        );
-
-                SecurityContextHolder.getContext().setAuthentication(authToken);
+        String token = jwtService.extractToken(request);
+        if (token != null && !token.isBlank() && SecurityContextHolder.getContext().getAuthentication() == null) {
+            JwtPrincipal principal = jwtService.parse(token);
+            if (principal != null) {
+                List<SimpleGrantedAuthority> authorities = principal.role() != null
+                        ? List.of(new SimpleGrantedAuthority("ROLE_" + principal.role()))
+                        : List.of();
+                SecurityContextHolder.getContext().setAuthentication(
+                        new UsernamePasswordAuthenticationToken(principal, null, authorities));
+                System.out.println("🟢 Authenticated: " + principal.username());
             }
-        } catch (ExpiredJwtException e) {
-            System.out.println("❌ JWT expired: " + e.getMessage());
         }
 
         filterChain.doFilter(request, response);
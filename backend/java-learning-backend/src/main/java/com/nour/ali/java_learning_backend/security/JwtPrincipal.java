@@ -0,0 +1,17 @@
+package com.nour.ali.java_learning_backend.security;
+
+import java.security.Principal;
+
+/**
+ * Identity from a verified token, set as the request's Authentication principal by
+ * {@link JwtAuthenticationFilter}. Controllers take it with {@code @AuthenticationPrincipal};
+ * it is null when the request carried no valid token. Being a {@link Principal} makes
+ * {@code Authentication.getName()} return the username.
+ */
+public record JwtPrincipal(String username, String role) implements Principal {
+
+    @Override
+    public String getName() {
+        return username;
+    }
+}
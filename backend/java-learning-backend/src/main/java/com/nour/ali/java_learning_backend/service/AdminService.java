@@ -5,46 +5,55 @@ import com.nour.ali.java_learning_backend.model.Student;
 import com.nour.ali.java_learning_backend.repository.AdminRepository;
 import com.nour.ali.java_learning_backend.repository.StudentRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 // Add this import
 import java.util.List;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 @Service
 public class AdminService {
 
     private final AdminRepository adminRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final StudentRepository studentRepository;
+    private final TokenRevocationService tokenRevocationService;
+    private final Executor taskExecutor;
 
     @Autowired
-    public AdminService(AdminRepository adminRepository, PasswordEncoder passwordEncoder, StudentRepository studentRepository) {
+    public AdminService(AdminRepository adminRepository, PasswordHashingService passwordHashingService, StudentRepository studentRepository,
+                        TokenRevocationService tokenRevocationService, @Qualifier("applicationTaskExecutor") Executor taskExecutor) {
         this.adminRepository = adminRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingService = passwordHashingService;
         this.studentRepository = studentRepository;
+        this.tokenRevocationService = tokenRevocationService;
+        this.taskExecutor = taskExecutor;
     }
 
-    public Optional<Admin> validateAdmin(String name, String password) {
+    // The request thread is free while bcrypt runs; the result is handed back on the task executor, not the hashing pool
+    public CompletableFuture<Optional<Admin>> validateAdmin(String name, String password) {
         Optional<Admin> adminOpt = adminRepository.findByName(name);
-        if (adminOpt.isPresent()) {
-            Admin admin = adminOpt.get();
-            if (passwordEncoder.matches(password, admin.getPassword())) {
-                return Optional.of(admin);
-            }
+        if (adminOpt.isEmpty()) {
+            return CompletableFuture.completedFuture(Optional.empty());
         }
-        return Optional.empty();
+        Admin admin = adminOpt.get();
+        return passwordHashingService.matches(password, admin.getPassword())
+                .thenApplyAsync(valid -> valid ? Optional.of(admin) : Optional.empty(), taskExecutor);
     }
 
-    public Admin addOrUpdateAdmin(Admin admin) {
+    public CompletableFuture<Admin> addOrUpdateAdmin(Admin admin) {
         if (adminRepository.existsByName(admin.getName())) {
             throw new ResponseStatusException(HttpStatus.CONFLICT, "Admin with this name already exists");
         }
-        admin.setPassword(passwordEncoder.encode(admin.getPassword()));
-        return adminRepository.save(admin);
+        return passwordHashingService.encodeAsync(admin.getPassword()).thenApplyAsync(hashed -> {
+            admin.setPassword(hashed);
+            return adminRepository.save(admin);
+        }, taskExecutor);
     }
 
 
@@ -54,6 +63,7 @@ public class AdminService {
         }
 
         adminRepository.deleteById(name);
+        tokenRevocationService.revoke(name);
         return true;
     }
 
@@ -70,18 +80,24 @@ public class AdminService {
         return studentRepository.findById(id);
     }
 
-    public void updateStudentPassword(Student student, String rawPassword) {
-        student.setPassword(passwordEncoder.encode(rawPassword));
-        studentRepository.save(student);
+    // Tokens issued with the old password stop working once the new one is stored
+    public CompletableFuture<Void> updateStudentPassword(Student student, String rawPassword) {
+        return passwordHashingService.encodeAsync(rawPassword).thenAcceptAsync(hashed -> {
+            student.setPassword(hashed);
+            studentRepository.save(student);
+            tokenRevocationService.revoke(student.getId());
+        }, taskExecutor);
     }
 
     public Optional<Admin> findByName(String name) {
         return adminRepository.findById(name);
     }
 
-    public void updateAdminPassword(Admin admin, String rawPassword) {
-        admin.setPassword(passwordEncoder.encode(rawPassword));
-        adminRepository.save(admin);
+    public CompletableFuture<Void> updateAdminPassword(Admin admin, String rawPassword) {
+        return passwordHashingService.encodeAsync(rawPassword).thenAcceptAsync(hashed -> {
+            admin.setPassword(hashed);
+            adminRepository.save(admin);
+        }, taskExecutor);
     }
 
     public List<Student> getStudentsByAdminCourseSemester(String admin, String course, String semesterId) {
@@ -0,0 +1,299 @@
+package com.nour.ali.java_learning_backend.service;
+
+import com.nour.ali.java_learning_backend.dto.AssignmentStatsDTO;
+import com.nour.ali.java_learning_backend.model.AssignmentStats;
+import com.nour.ali.java_learning_backend.model.AssignmentStatsId;
+import com.nour.ali.java_learning_backend.model.QuantileSketch;
+import com.nour.ali.java_learning_backend.repository.AssignmentStatsRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Per-assignment score statistics, kept up to date by GradeService on every write instead of
+ * being computed from a scan of the grades. Writers lock the grade rows they replace before
+ * reading their previous scores, so no score is missed or removed twice. Every student of an
+ * assignment shares its stats row, so {@link #apply} locks only the rows it changes, in key
+ * order, as the last step before commit. When a removed score was the row's min or max, the
+ * exact extremes are rescanned after commit instead of under that lock.
+ */
+@Service
+public class AssignmentStatsService {
+
+    // "17/20", "85", "85.5", "85%"
+    private static final Pattern FRACTION = Pattern.compile("\\s*(-?\\d+(?:\\.\\d+)?)\\s*/\\s*(\\d+(?:\\.\\d+)?)\\s*");
+    private static final Pattern NUMBER = Pattern.compile("\\s*(-?\\d+(?:\\.\\d+)?)\\s*%?\\s*");
+
+    // One grade moving from its previous value (null key when it is new) to its current one
+    public record ScoreChange(AssignmentStatsId previousKey, String previousGrade, AssignmentStatsId key, String grade) {}
+
+    private final AssignmentStatsRepository assignmentStatsRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final Set<AssignmentStatsId> staleExtremes = ConcurrentHashMap.newKeySet();
+    private final ExecutorService extremesRefresher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "stats-extremes");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public AssignmentStatsService(AssignmentStatsRepository assignmentStatsRepository, JdbcTemplate jdbcTemplate,
+                                  ApplicationEventPublisher eventPublisher, PlatformTransactionManager transactionManager) {
+        this.assignmentStatsRepository = assignmentStatsRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PreDestroy
+    public void stop() {
+        extremesRefresher.shutdownNow();
+    }
+
+    // Numeric score of a grade string, or null when it is not a score
+    public static Double parseScore(String grade) {
+        if (grade == null) {
+            return null;
+        }
+        Matcher fraction = FRACTION.matcher(grade);
+        if (fraction.matches()) {
+            double outOf = Double.parseDouble(fraction.group(2));
+            return outOf > 0 ? 100 * Double.parseDouble(fraction.group(1)) / outOf : null;
+        }
+        Matcher number = NUMBER.matcher(grade);
+        return number.matches() ? Double.parseDouble(number.group(1)) : null;
+    }
+
+    // Stats key of a grade; grades without an admin are not tracked
+    public static AssignmentStatsId keyOf(String admin, String course, String semesterId, String assignment) {
+        return admin != null ? new AssignmentStatsId(admin, course, semesterId, assignment) : null;
+    }
+
+    /**
+     * Moves each changed grade's score out of its previous row and into its current one. Call it
+     * last in the writing transaction, once the grades are written: the rows are locked from here
+     * until commit.
+     */
+    @Transactional
+    public void apply(List<ScoreChange> changes) {
+        SortedSet<AssignmentStatsId> keys = new TreeSet<>(AssignmentStatsId.ORDER);
+        forEachScore(changes, (key, score) -> keys.add(key), (key, score) -> keys.add(key));
+        if (keys.isEmpty()) {
+            return;
+        }
+        assignmentStatsRepository.insertMissing(keys);
+        // Key order: two writers never wait for each other's rows in a cycle
+        Map<AssignmentStatsId, Accumulator> touched = new HashMap<>();
+        for (AssignmentStatsId key : keys) {
+            AssignmentStats row = assignmentStatsRepository.lockRow(key.getAdmin(), key.getCourse(),
+                            key.getSemesterId(), key.getAssignment())
+                    .orElseThrow(() -> new IllegalStateException("Missing assignment_stats row for " + key.getCourse() + " / " + key.getAssignment()));
+            touched.put(key, new Accumulator(row));
+        }
+        forEachScore(changes, (key, score) -> touched.get(key).remove(score), (key, score) -> touched.get(key).add(score));
+
+        Set<AssignmentStatsId> stale = new HashSet<>();
+        touched.forEach((key, accumulator) -> {
+            if (accumulator.store()) {
+                stale.add(key);
+            }
+        });
+        if (!stale.isEmpty()) {
+            eventPublisher.publishEvent(new ScoreExtremesStaleEvent(stale));
+        }
+    }
+
+    private static void forEachScore(List<ScoreChange> changes,
+                                     BiConsumer<AssignmentStatsId, Double> removed,
+                                     BiConsumer<AssignmentStatsId, Double> added) {
+        for (ScoreChange change : changes) {
+            Double previous = parseScore(change.previousGrade());
+            Double current = parseScore(change.grade());
+            boolean sameRow = Objects.equals(change.previousKey(), change.key());
+            if (sameRow && Objects.equals(previous, current)) {
+                continue;
+            }
+            if (previous != null && change.previousKey() != null) {
+                removed.accept(change.previousKey(), previous);
+            }
+            if (current != null && change.key() != null) {
+                added.accept(change.key(), current);
+            }
+        }
+    }
+
+    // 📈 Rescans the grades of rows whose min or max was removed, one short transaction per row
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onExtremesStale(ScoreExtremesStaleEvent event) {
+        staleExtremes.addAll(event.keys());
+        extremesRefresher.execute(this::refreshExtremes);
+    }
+
+    private void refreshExtremes() {
+        for (AssignmentStatsId key : new ArrayList<>(staleExtremes)) {
+            staleExtremes.remove(key);
+            try {
+                // Locked before the grades are read, so a writer that commits in between applies its score afterwards
+                transactionTemplate.executeWithoutResult(status -> assignmentStatsRepository.lockRow(key.getAdmin(),
+                        key.getCourse(), key.getSemesterId(), key.getAssignment()).ifPresent(stats -> {
+                    DoubleSummaryStatistics exact = assignmentStatsRepository.findGrades(key).stream()
+                            .map(AssignmentStatsService::parseScore)
+                            .filter(Objects::nonNull)
+                            .mapToDouble(Double::doubleValue)
+                            .summaryStatistics();
+                    stats.setMin(exact.getCount() > 0 ? exact.getMin() : null);
+                    stats.setMax(exact.getCount() > 0 ? exact.getMax() : null);
+                }));
+            } catch (RuntimeException e) {
+                System.out.println("❌ Could not rescan score extremes of " + key.getAdmin() + " / " + key.getCourse()
+                        + " / " + key.getSemesterId() + " / " + key.getAssignment() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public List<AssignmentStatsDTO> getStats(String admin, String course, String semesterId) {
+        return assignmentStatsRepository.findByAdminAndCourseAndSemesterIdOrderByAssignment(admin, course, semesterId).stream()
+                .filter(s -> s.getCount() > 0)
+                .map(this::toDTO)
+                .toList();
+    }
+
+    // Several admins' sections of the same assignment combined into one distribution
+    @Transactional(readOnly = true)
+    public List<AssignmentStatsDTO> getMergedStats(String course, String semesterId) {
+        Map<String, List<AssignmentStats>> byAssignment = assignmentStatsRepository
+                .findByCourseAndSemesterIdOrderByAssignment(course, semesterId).stream()
+                .filter(s -> s.getCount() > 0)
+                .collect(Collectors.groupingBy(AssignmentStats::getAssignment, TreeMap::new, Collectors.toList()));
+        List<AssignmentStatsDTO> merged = new ArrayList<>();
+        byAssignment.forEach((assignment, rows) -> {
+            AssignmentStats total = new AssignmentStats(new AssignmentStatsId(null, course, semesterId, assignment));
+            Accumulator accumulator = new Accumulator(total);
+            rows.forEach(accumulator::merge);
+            accumulator.store();
+            merged.add(toDTO(total));
+        });
+        return merged;
+    }
+
+    // 📈 Builds the statistics of grades written before they were tracked
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfill() {
+        if (assignmentStatsRepository.count() > 0) {
+            return;
+        }
+        Map<AssignmentStatsId, Accumulator> all = new HashMap<>();
+        jdbcTemplate.query("SELECT admin, course, semester_id, assignment, grade FROM grades WHERE admin IS NOT NULL", rs -> {
+            Double score = parseScore(rs.getString("grade"));
+            if (score != null) {
+                AssignmentStatsId id = new AssignmentStatsId(rs.getString("admin"), rs.getString("course"),
+                        rs.getString("semester_id"), rs.getString("assignment"));
+                all.computeIfAbsent(id, k -> new Accumulator(new AssignmentStats(k))).add(score);
+            }
+        });
+        if (all.isEmpty()) {
+            return;
+        }
+        all.values().forEach(Accumulator::store);
+        assignmentStatsRepository.saveAll(all.values().stream().map(a -> a.stats).toList());
+        System.out.println("📈 Built score statistics for " + all.size() + " assignments");
+    }
+
+    private AssignmentStatsDTO toDTO(AssignmentStats stats) {
+        QuantileSketch sketch = QuantileSketch.fromBytes(stats.getSketch());
+        return new AssignmentStatsDTO(stats.getAdmin(), stats.getCourse(), stats.getSemesterId(), stats.getAssignment(),
+                stats.getCount(),
+                stats.getCount() > 0 ? stats.getSum() / stats.getCount() : null,
+                stats.getMin(), stats.getMax(),
+                sketch.quantile(0.5), sketch.quantile(0.25), sketch.quantile(0.75), sketch.quantile(0.9),
+                Arrays.stream(stats.getHistogram().split(",")).map(Long::parseLong).toList());
+    }
+
+    private static int histogramBucket(double score) {
+        int bucket = (int) Math.floor(score / (100.0 / AssignmentStats.HISTOGRAM_BUCKETS));
+        return Math.max(0, Math.min(AssignmentStats.HISTOGRAM_BUCKETS - 1, bucket));
+    }
+
+    // Decoded view of one stats row while it is being changed
+    private class Accumulator {
+
+        private final AssignmentStats stats;
+        private final long[] histogram;
+        private final QuantileSketch sketch;
+        private boolean extremesStale;
+
+        Accumulator(AssignmentStats stats) {
+            this.stats = stats;
+            this.histogram = Arrays.stream(stats.getHistogram().split(",")).mapToLong(Long::parseLong).toArray();
+            this.sketch = QuantileSketch.fromBytes(stats.getSketch());
+        }
+
+        void add(double score) {
+            stats.setCount(stats.getCount() + 1);
+            stats.setSum(stats.getSum() + score);
+            histogram[histogramBucket(score)]++;
+            sketch.add(score);
+            stats.setMin(stats.getMin() == null ? score : Math.min(stats.getMin(), score));
+            stats.setMax(stats.getMax() == null ? score : Math.max(stats.getMax(), score));
+        }
+
+        void remove(double score) {
+            stats.setCount(stats.getCount() - 1);
+            stats.setSum(stats.getSum() - score);
+            histogram[histogramBucket(score)]--;
+            sketch.remove(score);
+            // The sketch only knows the extremes approximately; the exact ones are rescanned after commit
+            if (Objects.equals(stats.getMin(), score) || Objects.equals(stats.getMax(), score)) {
+                extremesStale = true;
+            }
+        }
+
+        void merge(AssignmentStats other) {
+            stats.setCount(stats.getCount() + other.getCount());
+            stats.setSum(stats.getSum() + other.getSum());
+            long[] otherHistogram = Arrays.stream(other.getHistogram().split(",")).mapToLong(Long::parseLong).toArray();
+            for (int i = 0; i < histogram.length; i++) {
+                histogram[i] += otherHistogram[i];
+            }
+            sketch.merge(QuantileSketch.fromBytes(other.getSketch()));
+            if (other.getMin() != null) {
+                stats.setMin(stats.getMin() == null ? other.getMin() : Math.min(stats.getMin(), other.getMin()));
+                stats.setMax(stats.getMax() == null ? other.getMax() : Math.max(stats.getMax(), other.getMax()));
+            }
+        }
+
+        // True when min or max may still include a removed score and has to be rescanned
+        boolean store() {
+            if (stats.getCount() == 0) {
+                stats.setSum(0); // no floating point residue once every score is gone
+                stats.setMin(null);
+                stats.setMax(null);
+                extremesStale = false;
+            }
+            stats.setHistogram(Arrays.stream(histogram).mapToObj(Long::toString).collect(Collectors.joining(",")));
+            stats.setSketch(sketch.toBytes());
+            return extremesStale;
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.nour.ali.java_learning_backend.service;
+
+import java.time.Instant;
+
+// A Stripe Checkout Session URL and the moment Stripe stops accepting it
+public record CheckoutLink(String url, Instant expiresAt) {}
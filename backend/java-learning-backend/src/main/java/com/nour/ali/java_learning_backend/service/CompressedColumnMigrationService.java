@@ -0,0 +1,88 @@
+package com.nour.ali.java_learning_backend.service;
+
+import com.nour.ali.java_learning_backend.model.CompressedTextConverter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Rewrites legacy TEXT columns into their CompressedTextConverter bytea replacements, a batch at a time.
+// Table and column names only ever come from StorageInitializer constants.
+@Service
+public class CompressedColumnMigrationService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CompressedTextConverter converter;
+
+    @Autowired
+    public CompressedColumnMigrationService(JdbcTemplate jdbcTemplate, CompressedTextConverter converter) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.converter = converter;
+    }
+
+    public boolean hasColumn(String table, String column) {
+        return findColumn(table, column) != null;
+    }
+
+    // The new entity mapping no longer writes the legacy column, so it must accept NULL
+    public void allowNulls(String table, String column) {
+        Map<String, Object> meta = findColumn(table, column);
+        if (meta != null && "NO".equals(meta.get("IS_NULLABLE"))) {
+            jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN " + column + " DROP NOT NULL");
+            System.out.println("🔧 " + table + "." + column + " is now nullable");
+        }
+    }
+
+    /**
+     * Encodes up to {@code batchSize} rows whose {@code legacyColumn} is still set into
+     * {@code dataColumn} and clears the legacy value. Returns the number of rows rewritten; 0 once done.
+     */
+    @Transactional
+    public int migrateBatch(String table, List<String> keyColumns, String legacyColumn, String dataColumn, int batchSize) {
+        String keys = String.join(", ", keyColumns);
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT " + keys + ", " + legacyColumn + " FROM " + table +
+                        " WHERE " + dataColumn + " IS NULL AND " + legacyColumn + " IS NOT NULL" +
+                        " ORDER BY " + keys + " LIMIT ?", batchSize);
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        List<Object[]> updates = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            Object[] args = new Object[keyColumns.size() + 1];
+            args[0] = converter.encode((String) row.get(legacyColumn));
+            for (int i = 0; i < keyColumns.size(); i++) {
+                args[i + 1] = row.get(keyColumns.get(i));
+            }
+            updates.add(args);
+        }
+        // A row a submission rewrote since the SELECT already has newer data; leave it alone
+        String where = String.join(" = ? AND ", keyColumns) + " = ? AND " + dataColumn + " IS NULL";
+        jdbcTemplate.batchUpdate("UPDATE " + table + " SET " + dataColumn + " = ?, " + legacyColumn + " = NULL WHERE " + where, updates);
+        return rows.size();
+    }
+
+    private Map<String, Object> findColumn(String table, String column) {
+        return jdbcTemplate.execute((ConnectionCallback<Map<String, Object>>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            for (String t : List.of(table, table.toUpperCase())) {
+                for (String c : List.of(column, column.toUpperCase())) {
+                    try (ResultSet rs = metaData.getColumns(null, null, t, c)) {
+                        if (rs.next()) {
+                            return Map.of("IS_NULLABLE", rs.getString("IS_NULLABLE"));
+                        }
+                    }
+                }
+            }
+            return null;
+        });
+    }
+}
@@ -0,0 +1,4 @@
+package com.nour.ali.java_learning_backend.service;
+
+// Published by StudentService when a student joins or leaves a course/semester roster
+public record EnrollmentsChangedEvent(String course, String semesterId) {}
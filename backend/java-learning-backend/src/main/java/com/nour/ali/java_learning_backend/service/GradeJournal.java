@@ -0,0 +1,329 @@
+package com.nour.ali.java_learning_backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nour.ali.java_learning_backend.dto.GradeRequestDTO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
+
+/**
+ * Write-behind journal for grade submissions (grades.ingest.mode=journal).
+ * <p>
+ * {@link #append} returns once the submission is fsynced to the current segment file; concurrent
+ * appends share one fsync. {@link #drain} seals the segment and writes its submissions in order, in
+ * chunks, through {@link GradeService#submitGrades}, which records each one in the submission history
+ * and collapses repeats of the same GradeId within a chunk into one grade write. After each chunk
+ * commits, the number of entries done is saved next to the segment, so a failed or interrupted drain
+ * resumes after the last committed chunk instead of writing history rows twice. A segment is deleted
+ * once all of it is written.
+ * <p>
+ * A chunk that fails because the database is unreachable is retried whole on the next drain. Any
+ * other failure is retried one entry at a time, and entries that still fail are appended to
+ * {@code dead-letter.jsonl} in the journal directory, so one bad line never blocks the ones after it.
+ */
+@Service
+public class GradeJournal {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".jsonl";
+    private static final String OFFSET_SUFFIX = ".offset";
+    static final String DEAD_LETTER_FILE = "dead-letter.jsonl";
+    private static final int MAX_GROUP_COMMIT = 512;
+    private static final int MAX_SEGMENTS_PER_DRAIN = 20;
+
+    private record PendingAppend(byte[] line, CompletableFuture<Void> written) {}
+
+    private record Entry(String line, GradeRequestDTO submission) {}
+
+    private final GradeService gradeService;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final Path directory;
+    private final long appendTimeoutMs;
+    private final BlockingQueue<PendingAppend> pending;
+
+    private final Object segmentLock = new Object();
+    private FileChannel segment;
+    private long segmentNumber;
+    private volatile boolean running;
+    private Thread writer;
+
+    @Autowired
+    public GradeJournal(GradeService gradeService, ObjectMapper objectMapper,
+                        @Value("${grades.ingest.mode:direct}") String ingestMode,
+                        @Value("${grades.journal.dir:data/grade-journal}") String directory,
+                        @Value("${grades.journal.queue-capacity:10000}") int queueCapacity,
+                        @Value("${grades.journal.append-timeout-ms:5000}") long appendTimeoutMs) {
+        this.gradeService = gradeService;
+        this.objectMapper = objectMapper;
+        this.enabled = "journal".equalsIgnoreCase(ingestMode);
+        this.directory = Path.of(directory);
+        this.appendTimeoutMs = appendTimeoutMs;
+        this.pending = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(directory);
+        List<Path> leftover = sealedSegments(Long.MAX_VALUE);
+        segmentNumber = leftover.isEmpty() ? 1 : numberOf(leftover.get(leftover.size() - 1)) + 1;
+        openSegment();
+        if (!leftover.isEmpty()) {
+            System.out.println("📒 Replaying " + leftover.size() + " grade journal segment(s) left from the last run");
+        }
+
+        running = true;
+        writer = new Thread(this::writeLoop, "grade-journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+        System.out.println("📒 Grade journal enabled in " + directory.toAbsolutePath());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException, IOException {
+        if (!enabled) {
+            return;
+        }
+        running = false;
+        writer.join(appendTimeoutMs);
+        synchronized (segmentLock) {
+            segment.close();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Blocks until the submission is durable on local disk
+    public void append(GradeRequestDTO dto) {
+        byte[] line;
+        try {
+            line = (objectMapper.writeValueAsString(dto) + "\n").getBytes(StandardCharsets.UTF_8);
+        } catch (JsonProcessingException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unserializable grade submission");
+        }
+
+        PendingAppend append = new PendingAppend(line, new CompletableFuture<>());
+        if (!running || !pending.offer(append)) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Grade journal is full, please retry");
+        }
+        try {
+            append.written().get(appendTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted while journaling grade");
+        } catch (ExecutionException | TimeoutException e) {
+            System.out.println("❌ Grade journal append failed: " + e);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Could not journal grade, please retry");
+        }
+    }
+
+    // Group commit: everything queued while the previous fsync ran goes out with the next one
+    private void writeLoop() {
+        List<PendingAppend> group = new ArrayList<>(MAX_GROUP_COMMIT);
+        while (running || !pending.isEmpty()) {
+            try {
+                PendingAppend first = pending.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                pending.drainTo(group, MAX_GROUP_COMMIT - 1);
+                synchronized (segmentLock) {
+                    for (PendingAppend append : group) {
+                        ByteBuffer buffer = ByteBuffer.wrap(append.line());
+                        while (buffer.hasRemaining()) {
+                            segment.write(buffer);
+                        }
+                    }
+                    segment.force(false);
+                }
+                group.forEach(append -> append.written().complete(null));
+            } catch (IOException e) {
+                group.forEach(append -> append.written().completeExceptionally(e));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    // 🚰 Moves sealed segments into the database in large batches, oldest first
+    @Scheduled(fixedDelayString = "${grades.journal.drain-interval-ms:1000}")
+    public void drain() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            rotate();
+            List<Path> sealed = sealedSegments(segmentNumber);
+            for (Path path : sealed.subList(0, Math.min(sealed.size(), MAX_SEGMENTS_PER_DRAIN))) {
+                drainSegment(path);
+            }
+        } catch (IOException | RuntimeException e) {
+            // The database is unavailable; the segment and its offset stay on disk for the next attempt
+            System.out.println("❌ Grade journal drain failed, will retry: " + e.getMessage());
+        }
+    }
+
+    private void drainSegment(Path path) throws IOException {
+        List<Entry> entries = read(path);
+        int offset = readOffset(path);
+        int resumedAt = offset;
+        int written = 0;
+        while (offset < entries.size()) {
+            int end = Math.min(offset + GradeService.MAX_BATCH_SIZE, entries.size());
+            List<Entry> chunk = entries.subList(offset, end);
+            try {
+                written += gradeService.submitGrades(chunk.stream().map(Entry::submission).toList()).size();
+            } catch (RuntimeException batchFailed) {
+                if (isTransient(batchFailed)) {
+                    throw batchFailed;
+                }
+                // One bad entry must not hold back the rest: each one commits (or is dead-lettered) on its own
+                for (int i = offset; i < end; i++) {
+                    written += writeOne(path, entries.get(i));
+                    writeOffset(path, i + 1);
+                }
+            }
+            offset = end;
+            writeOffset(path, offset);
+        }
+        Files.delete(path);
+        Files.deleteIfExists(offsetPath(path));
+        System.out.println("🚰 Drained " + (entries.size() - resumedAt) + " journaled submissions as " + written
+                + " grade writes from " + path.getFileName());
+    }
+
+    private int writeOne(Path segmentPath, Entry entry) throws IOException {
+        try {
+            return gradeService.submitGrades(List.of(entry.submission())).size();
+        } catch (RuntimeException rejected) {
+            if (isTransient(rejected)) {
+                throw rejected;
+            }
+            GradeRequestDTO dto = entry.submission();
+            String reason = rejected instanceof ResponseStatusException status ? status.getReason() : rejected.toString();
+            System.out.println("⚠️ Dead-lettering journaled grade for " + dto.getStudentId() + " / " + dto.getCourse()
+                    + " / " + dto.getAssignment() + " from " + segmentPath.getFileName() + ": " + reason);
+            Files.write(directory.resolve(DEAD_LETTER_FILE), (entry.line() + "\n").getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND, StandardOpenOption.SYNC);
+            return 0;
+        }
+    }
+
+    // Failures that say nothing about the entries themselves; the same chunk is tried again later
+    static boolean isTransient(RuntimeException e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException
+                || e instanceof CannotCreateTransactionException;
+    }
+
+    private static Path offsetPath(Path segmentPath) {
+        return segmentPath.resolveSibling(segmentPath.getFileName() + OFFSET_SUFFIX);
+    }
+
+    private static int readOffset(Path segmentPath) throws IOException {
+        Path offsetPath = offsetPath(segmentPath);
+        return Files.exists(offsetPath) ? Integer.parseInt(Files.readString(offsetPath).trim()) : 0;
+    }
+
+    // Written to a temporary file and renamed, so a crash leaves either the old or the new offset
+    private static void writeOffset(Path segmentPath, int offset) throws IOException {
+        Path offsetPath = offsetPath(segmentPath);
+        Path temporary = offsetPath.resolveSibling(offsetPath.getFileName() + ".tmp");
+        Files.write(temporary, Integer.toString(offset).getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.SYNC);
+        Files.move(temporary, offsetPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void rotate() throws IOException {
+        synchronized (segmentLock) {
+            if (segment.size() == 0) {
+                return;
+            }
+            segment.force(false);
+            segment.close();
+            segmentNumber++;
+            openSegment();
+        }
+    }
+
+    private void openSegment() throws IOException {
+        segment = FileChannel.open(directory.resolve(SEGMENT_PREFIX + "%020d".formatted(segmentNumber) + SEGMENT_SUFFIX),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    // Segments numbered below `before`, oldest first
+    private List<Path> sealedSegments(long before) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(p -> p.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .filter(p -> p.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .filter(p -> numberOf(p) < before)
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static long numberOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    // Readable entries in file order; offsets count positions in this list, which is the same on every read
+    private List<Entry> read(Path path) throws IOException {
+        List<Entry> submissions = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    submissions.add(new Entry(line, objectMapper.readValue(line, GradeRequestDTO.class)));
+                } catch (JsonProcessingException e) {
+                    // Only a write torn by a crash can end up here, and it was never acknowledged
+                    System.out.println("⚠️ Skipping unreadable line in " + path.getFileName());
+                }
+            }
+        }
+        return submissions;
+    }
+}
@@ -0,0 +1,139 @@
+package com.nour.ali.java_learning_backend.service;
+
+import com.nour.ali.java_learning_backend.dto.GradeCacheStatsDTO;
+import com.nour.ali.java_learning_backend.dto.GradeFilter;
+import com.nour.ali.java_learning_backend.dto.GradeResponseDTO;
+import com.nour.ali.java_learning_backend.model.GradeId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * GET /grades results per normalized GradeFilter, in an LRU map bounded by entry count and by an
+ * estimate of their size. A written grade can only appear under filters whose every supplied field
+ * equals the grade's, so after commit exactly those keys are removed (2^4 studentId/course/
+ * assignment/semesterId combinations times its admins plus "any admin"). A result computed while
+ * an invalidation ran is returned but not cached, so a stale list can never stick.
+ */
+@Service
+public class GradeQueryCache {
+
+    private static final long ENTRY_OVERHEAD = 128;
+    private static final long GRADE_OVERHEAD = 256;
+
+    private record Entry(List<GradeResponseDTO> grades, long weight) {}
+
+    private final int maxEntries;
+    private final long maxWeight;
+    private final LinkedHashMap<GradeFilter, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong uncacheable = new AtomicLong();
+
+    public GradeQueryCache(@Value("${grades.cache.max-entries:2000}") int maxEntries,
+                           @Value("${grades.cache.max-weight-bytes:67108864}") long maxWeight) {
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+    }
+
+    public List<GradeResponseDTO> get(GradeFilter filter, Supplier<List<GradeResponseDTO>> loader) {
+        synchronized (this) {
+            Entry cached = entries.get(filter);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return cached.grades();
+            }
+        }
+        misses.incrementAndGet();
+        long invalidationsBefore = invalidations.get();
+        List<GradeResponseDTO> grades = loader.get();
+        long entryWeight = weigh(grades);
+        synchronized (this) {
+            // Invalidations take the same lock, so none can slip in between this check and the put
+            if (invalidations.get() != invalidationsBefore) {
+                return grades;
+            }
+            if (entryWeight > maxWeight / 4) {
+                uncacheable.incrementAndGet(); // one huge result must not flush everything else
+                return grades;
+            }
+            Entry previous = entries.put(filter, new Entry(grades, entryWeight));
+            weight += entryWeight - (previous != null ? previous.weight() : 0);
+            evictOverflow();
+        }
+        return grades;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onGradesChanged(GradesChangedEvent event) {
+        List<String> admins = new ArrayList<>(event.admins());
+        admins.add(null);
+        synchronized (this) {
+            invalidations.incrementAndGet();
+            for (GradeId id : event.ids()) {
+                for (int mask = 0; mask < 16; mask++) {
+                    for (String admin : admins) {
+                        Entry removed = entries.remove(new GradeFilter(
+                                (mask & 1) != 0 ? id.getStudentId() : null,
+                                (mask & 2) != 0 ? id.getCourse() : null,
+                                (mask & 4) != 0 ? id.getAssignment() : null,
+                                admin,
+                                (mask & 8) != 0 ? id.getSemesterId() : null));
+                        if (removed != null) {
+                            weight -= removed.weight();
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    public synchronized GradeCacheStatsDTO getStats() {
+        long lookups = hits.get() + misses.get();
+        return new GradeCacheStatsDTO(entries.size(), maxEntries, weight, maxWeight,
+                hits.get(), misses.get(), lookups > 0 ? (double) hits.get() / lookups : 0,
+                evictions.get(), invalidations.get(), uncacheable.get());
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<GradeFilter, Entry>> eldest = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || weight > maxWeight) && eldest.hasNext()) {
+            weight -= eldest.next().getValue().weight();
+            eldest.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    // Rough heap footprint: string payloads (2 bytes per char) plus a fixed cost per object
+    private static long weigh(List<GradeResponseDTO> grades) {
+        long total = ENTRY_OVERHEAD;
+        for (GradeResponseDTO grade : grades) {
+            long chars = length(grade.getStudentId()) + length(grade.getCourse()) + length(grade.getAssignment())
+                    + length(grade.getSemesterId()) + length(grade.getGrade()) + length(grade.getComment())
+                    + length(grade.getConsoleOutput()) + length(grade.getAdmin());
+            if (grade.getSubmittedFiles() != null) {
+                for (Map.Entry<String, String> file : grade.getSubmittedFiles().entrySet()) {
+                    chars += length(file.getKey()) + length(file.getValue());
+                }
+            }
+            total += GRADE_OVERHEAD + 2 * chars;
+        }
+        return total;
+    }
+
+    private static long length(String value) {
+        return value != null ? value.length() : 0;
+    }
+}
@@ -1,32 +1,97 @@
 package com.nour.ali.java_learning_backend.service;
 
+import com.nour.ali.java_learning_backend.dto.GradeCursor;
+import com.nour.ali.java_learning_backend.dto.GradeExportColumn;
+import com.nour.ali.java_learning_backend.dto.GradeFilter;
+import com.nour.ali.java_learning_backend.dto.GradeHistoryPageDTO;
+import com.nour.ali.java_learning_backend.dto.GradePageDTO;
+import com.nour.ali.java_learning_backend.dto.GradePatchDTO;
 import com.nour.ali.java_learning_backend.dto.GradeRequestDTO;
 import com.nour.ali.java_learning_backend.dto.GradeResponseDTO;
+import com.nour.ali.java_learning_backend.dto.GradeSubmissionDTO;
+import com.nour.ali.java_learning_backend.dto.GradeSummaryDTO;
+import com.nour.ali.java_learning_backend.model.AssignmentStatsId;
+import com.nour.ali.java_learning_backend.model.CompressedText;
 import com.nour.ali.java_learning_backend.model.Grade;
+import com.nour.ali.java_learning_backend.model.GradeId;
+import com.nour.ali.java_learning_backend.model.GradeSubmission;
 import com.nour.ali.java_learning_backend.model.Student;
 import com.nour.ali.java_learning_backend.repository.GradeRepository;
+import com.nour.ali.java_learning_backend.repository.GradeRepositoryCustom;
+import com.nour.ali.java_learning_backend.repository.GradeSpecifications;
+import com.nour.ali.java_learning_backend.repository.GradeSubmissionRepository;
 import com.nour.ali.java_learning_backend.repository.StudentRepository;
+import jakarta.persistence.EntityManager;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class GradeService {
 
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final int MAX_BATCH_SIZE = 1000;
+    private static final Comparator<Grade> KEY_ORDER = Comparator.comparing(Grade::getStudentId)
+            .thenComparing(Grade::getCourse)
+            .thenComparing(Grade::getAssignment)
+            .thenComparing(Grade::getSemesterId);
+    private static final int STREAM_CHUNK_SIZE = 100;
+    private static final int CSV_BUFFER_SIZE = 64 * 1024;
+
     private final GradeRepository gradeRepository;
     private final StudentRepository studentRepository;
+    private final FileBlobService fileBlobService;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AssignmentStatsService assignmentStatsService;
+    private final GradeSubmissionRepository gradeSubmissionRepository;
+    private final GradeQueryCache gradeQueryCache;
 
     @Autowired
-    public GradeService(GradeRepository gradeRepository, StudentRepository studentRepository) {
+    public GradeService(GradeRepository gradeRepository, StudentRepository studentRepository,
+                        FileBlobService fileBlobService, EntityManager entityManager,
+                        ApplicationEventPublisher eventPublisher, AssignmentStatsService assignmentStatsService,
+                        GradeSubmissionRepository gradeSubmissionRepository, GradeQueryCache gradeQueryCache) {
         this.gradeRepository = gradeRepository;
         this.studentRepository = studentRepository;
+        this.fileBlobService = fileBlobService;
+        this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
+        this.assignmentStatsService = assignmentStatsService;
+        this.gradeSubmissionRepository = gradeSubmissionRepository;
+        this.gradeQueryCache = gradeQueryCache;
     }
 
+    @Transactional
     public GradeResponseDTO submitOrUpdateGrade(GradeRequestDTO dto) {
         System.out.println("🚀 submitOrUpdateGrade triggered with data:");
         System.out.println("   ➤ Student ID: " + dto.getStudentId());
@@ -37,6 +102,8 @@ public class GradeService {
         System.out.println("   ➤ Semester: " + dto.getSemesterId());
         System.out.println("   ➤ Timestamp: " + dto.getTimestamp());
 
+        validateSubmission(dto);
+
         Student student = studentRepository.findById(dto.getStudentId())
                 .orElseThrow(() -> {
                     System.out.println("❌ Student not found: " + dto.getStudentId());
@@ -50,53 +117,452 @@ public class GradeService {
 
         System.out.println("✅ Student is active and paid.");
 
-        Optional<Grade> optionalGrade = gradeRepository
-                .findByStudentIdAndCourseAndAssignmentAndSemesterId(dto.getStudentId(), dto.getCourse(), dto.getAssignment(), dto.getSemesterId());
+        GradeResponseDTO response = upsert(List.of(dto)).get(0);
+        System.out.println("✅ Grade saved successfully to DB!");
+        return response;
+    }
+
+    // Checked before a submission is accepted, so nothing that can never be stored is journaled or batched
+    public void validateSubmission(GradeRequestDTO dto) {
+        requireKey(dto.getStudentId(), "studentId");
+        requireKey(dto.getCourse(), "course");
+        requireKey(dto.getAssignment(), "assignment");
+        requireKey(dto.getSemesterId(), "semesterId");
+        if (dto.getGrade() == null || dto.getGrade().isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "grade is required");
+        }
+    }
+
+    // Key columns are VARCHAR(255)
+    private static void requireKey(String value, String name) {
+        if (value == null || value.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, name + " is required");
+        }
+        if (value.length() > 255) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, name + " must be at most 255 characters");
+        }
+    }
+
+    // 📦 Many submissions in one transaction: one student lookup, then the same batched upserts as a single submission
+    @Transactional
+    public List<GradeResponseDTO> submitGrades(List<GradeRequestDTO> dtos) {
+        if (dtos.size() > MAX_BATCH_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + MAX_BATCH_SIZE + " grades per batch");
+        }
+
+        if (dtos.isEmpty()) {
+            return List.of();
+        }
+
+        dtos.forEach(this::validateSubmission);
+
+        Set<String> studentIds = dtos.stream().map(GradeRequestDTO::getStudentId).collect(Collectors.toSet());
+        Map<String, Student> students = studentRepository.findAllById(studentIds).stream()
+                .collect(Collectors.toMap(Student::getId, s -> s));
+        for (String studentId : studentIds) {
+            Student student = students.get(studentId);
+            if (student == null) {
+                System.out.println("❌ Student not found: " + studentId);
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Student not found: " + studentId);
+            }
+            if (!student.isActive() || !student.isPaid()) {
+                System.out.println("❌ Student not active/paid: " + studentId);
+                throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Student has not completed payment: " + studentId);
+            }
+        }
+
+        List<GradeResponseDTO> responses = upsert(dtos);
+        System.out.println("✅ Saved batch of " + responses.size() + " grades");
+        return responses;
+    }
+
+    /**
+     * Writes validated submissions: the existing grade rows are locked and read in one statement,
+     * new ones are claimed by inserting them, and the rest are written in one batched upsert; then
+     * one batch for their files plus a delete of files that are gone. Those row locks keep
+     * concurrent resubmits of the same grade from interleaving their score, file and blob
+     * reference changes. Score statistics are applied last, since their rows are shared by the
+     * whole assignment. Submissions without submittedFiles keep their stored files.
+     * <p>
+     * Every attempt is also appended to grade_submissions. The grades table is the compact
+     * latest view: a later attempt for the same GradeId replaces an earlier one there.
+     * Returns one response per GradeId.
+     * <p>
+     * So a submission is no longer the single grade statement it once was. The transaction holds
+     * what must commit together: the grade (a locking read plus an insert or upsert), its files
+     * and blob references, the history batch and the stats rows. Each of these is batched and
+     * costs the same for one grade as for a thousand. Similarity indexing is left to
+     * SubmittedFilesChangedEvent after commit.
+     */
+    private List<GradeResponseDTO> upsert(List<GradeRequestDTO> attempts) {
+        List<Grade> attemptGrades = new ArrayList<>(attempts.size());
+        Map<GradeId, Integer> latest = new LinkedHashMap<>();
+        for (int i = 0; i < attempts.size(); i++) {
+            Grade grade = new Grade();
+            applyRequest(grade, attempts.get(i));
+            attemptGrades.add(grade);
+            latest.put(idOf(attempts.get(i)), i);
+        }
+        List<GradeRequestDTO> dtos = latest.values().stream().map(attempts::get).toList();
+        List<Grade> grades = latest.values().stream().map(attemptGrades::get).toList();
+        List<GradeId> ids = new ArrayList<>(latest.keySet());
+
+        // 🔒 Each grade is locked before its previous score is read, so that score is replaced exactly once.
+        // Same lock order in every transaction, whatever order the request listed them in.
+        Map<GradeId, GradeSummaryDTO> previousGrades = gradeRepository.lockSummaries(ids);
+        Set<GradeId> inserted = gradeRepository.insertAbsent(grades.stream()
+                .filter(grade -> !previousGrades.containsKey(idOf(grade)))
+                .sorted(KEY_ORDER)
+                .toList());
+        List<GradeId> insertedConcurrently = ids.stream()
+                .filter(id -> !previousGrades.containsKey(id) && !inserted.contains(id))
+                .toList();
+        previousGrades.putAll(gradeRepository.lockSummaries(insertedConcurrently));
+        gradeRepository.upsertGrades(grades.stream()
+                .filter(grade -> !inserted.contains(idOf(grade)))
+                .sorted(KEY_ORDER)
+                .toList());
+        List<AssignmentStatsService.ScoreChange> scoreChanges = grades.stream().map(grade -> {
+            GradeSummaryDTO before = previousGrades.get(idOf(grade));
+            return new AssignmentStatsService.ScoreChange(
+                    before != null ? AssignmentStatsService.keyOf(before.getAdmin(), before.getCourse(),
+                            before.getSemesterId(), before.getAssignment()) : null,
+                    before != null ? before.getGrade() : null,
+                    statsKeyOf(grade), grade.getGrade());
+        }).toList();
+
+        Map<GradeId, Map<String, String>> storedHashes = gradeRepository.findFileHashes(ids);
 
-        Grade grade;
+        List<GradeId> withFiles = new ArrayList<>();
+        List<Map<String, String>> previousHashes = new ArrayList<>();
+        List<Map<String, String>> files = new ArrayList<>();
+        for (int i = 0; i < dtos.size(); i++) {
+            if (dtos.get(i).getSubmittedFiles() != null) {
+                withFiles.add(ids.get(i));
+                previousHashes.add(storedHashes.getOrDefault(ids.get(i), Map.of()));
+                files.add(dtos.get(i).getSubmittedFiles());
+            }
+        }
+
+        // 🗂️ Each attempt's files hold their own blob references, so history outlives later resubmits
+        int latestFileSets = files.size();
+        for (GradeRequestDTO attempt : attempts) {
+            if (attempt.getSubmittedFiles() != null) {
+                previousHashes.add(Map.of());
+                files.add(attempt.getSubmittedFiles());
+            }
+        }
+
+        // ✅ File bodies are stored once by content hash; submitted_files only keeps filename -> hash.
+        // Compared by hash, only added, changed and removed files touch submitted_files.
+        List<Map<String, String>> newHashes = fileBlobService.storeFiles(previousHashes, files);
+        Map<GradeId, Map<String, String>> changed = new HashMap<>();
+        Map<GradeId, Set<String>> removed = new HashMap<>();
+        for (int i = 0; i < withFiles.size(); i++) {
+            Map<String, String> previous = previousHashes.get(i);
+            Map<String, String> current = newHashes.get(i);
+            Map<String, String> differing = new HashMap<>();
+            current.forEach((filename, hash) -> {
+                if (!hash.equals(previous.get(filename))) {
+                    differing.put(filename, hash);
+                }
+            });
+            if (!differing.isEmpty()) {
+                changed.put(withFiles.get(i), differing);
+            }
+            Set<String> gone = new HashSet<>(previous.keySet());
+            gone.removeAll(current.keySet());
+            if (!gone.isEmpty()) {
+                removed.put(withFiles.get(i), gone);
+            }
+        }
+        gradeRepository.upsertFiles(changed);
+        gradeRepository.deleteFiles(removed);
+
+
+        List<GradeSubmission> submissions = new ArrayList<>(attempts.size());
+        int attemptFileSet = latestFileSets;
+        for (int i = 0; i < attempts.size(); i++) {
+            submissions.add(new GradeSubmission(attemptGrades.get(i),
+                    attempts.get(i).getSubmittedFiles() != null ? newHashes.get(attemptFileSet++) : Map.of()));
+        }
+        gradeSubmissionRepository.saveAll(submissions);
+
+        // 📈 Last, so the assignment's shared stats rows stay locked only until the commit that follows
+        assignmentStatsService.apply(scoreChanges);
+
+        Set<String> admins = new HashSet<>();
+        grades.forEach(grade -> admins.add(grade.getAdmin()));
+        previousGrades.values().forEach(before -> admins.add(before.getAdmin()));
+        admins.remove(null);
+        eventPublisher.publishEvent(new GradesChangedEvent(ids, admins));
+        if (!withFiles.isEmpty()) {
+            // 🔍 Near-duplicate index follows the grade's current files, after commit
+            eventPublisher.publishEvent(new SubmittedFilesChangedEvent(withFiles));
+        }
+
+        // ✅ Return submitted files in response; grades submitted without files report the stored ones
+        Set<GradeId> resubmitted = new HashSet<>(withFiles);
+        Map<String, String> storedContents = fileBlobService.loadContents(ids.stream()
+                .filter(id -> !resubmitted.contains(id))
+                .flatMap(id -> storedHashes.getOrDefault(id, Map.of()).values().stream())
+                .toList());
+        List<GradeResponseDTO> responses = new ArrayList<>(dtos.size());
+        for (int i = 0; i < dtos.size(); i++) {
+            Map<String, String> submittedFiles = dtos.get(i).getSubmittedFiles() != null
+                    ? new HashMap<>(dtos.get(i).getSubmittedFiles())
+                    : fileBlobService.resolve(storedHashes.getOrDefault(ids.get(i), Map.of()), storedContents);
+            responses.add(toResponseDTO(grades.get(i), submittedFiles));
+        }
+        return responses;
+    }
+
+    /**
+     * Overrides the grade and/or comment of an existing grade. Only those columns are updated;
+     * console output and submitted files are not touched. {@code admin} limits the change to
+     * grades owned by that admin; null means any grade.
+     */
+    @Transactional
+    public GradeResponseDTO patchGrade(GradePatchDTO dto, String admin) {
+        if (dto.getGrade() == null && dto.getComment() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Nothing to update: provide grade and/or comment");
+        }
+        GradeId id = new GradeId(dto.getStudentId(), dto.getCourse(), dto.getAssignment(), dto.getSemesterId());
+        // Same order as submissions: the grade row first, stats rows last
+        if (gradeRepository.lockSummaries(List.of(id)).isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Grade not found");
+        }
+        Grade grade = gradeRepository.findById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Grade not found"));
+        String previousGrade = grade.getGrade();
+        if (admin != null && !admin.equals(grade.getAdmin())) {
+            System.out.println("❌ Admin " + admin + " tried to override a grade owned by " + grade.getAdmin());
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "You can only override grades you own");
+        }
 
-        if (optionalGrade.isPresent()) {
-            grade = optionalGrade.get();
-            System.out.println("📝 Found existing grade. Will update: ID (composite) = " +
-                    grade.getStudentId() + " | " + grade.getCourse() + " | " + grade.getAssignment() + " | " + grade.getSemesterId());
-        } else {
-            grade = new Grade();
-            System.out.println("➕ No existing grade found. Will create new.");
+        if (dto.getGrade() != null) {
+            grade.setGrade(dto.getGrade());
         }
+        if (dto.getComment() != null) {
+            grade.setComment(dto.getComment());
+        }
+        grade.setUpdatedAt(Instant.now());
+        gradeRepository.flush();
+        AssignmentStatsId statsKey = statsKeyOf(grade);
+        assignmentStatsService.apply(List.of(
+                new AssignmentStatsService.ScoreChange(statsKey, previousGrade, statsKey, grade.getGrade())));
+        eventPublisher.publishEvent(new GradesChangedEvent(List.of(id),
+                grade.getAdmin() != null ? Set.of(grade.getAdmin()) : Set.of()));
+        System.out.println("✏️ Grade overridden for " + dto.getStudentId() + " / " + dto.getCourse() + " / " + dto.getAssignment());
+        return toResponseDTOs(List.of(grade)).get(0);
+    }
+
+    // Content hash of one submitted file, which doubles as its strong ETag
+    public String findFileHash(GradeId id, String filename) {
+        String hash = gradeRepository.findFileHash(id, filename);
+        if (hash == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "File not found");
+        }
+        return hash;
+    }
 
-        // Apply updates
+    public Resource loadFile(String hash) {
+        Resource file = fileBlobService.openFile(hash);
+        if (file == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "File not found");
+        }
+        return file;
+    }
+
+    @Transactional(readOnly = true)
+    public List<GradeResponseDTO> findGrades(GradeFilter filter) {
+        return gradeQueryCache.get(filter, () -> List.copyOf(toResponseDTOs(
+                gradeRepository.findAll(GradeSpecifications.matching(filter), GradeSpecifications.KEY_ORDER))));
+    }
+
+    public GradeRepositoryCustom.ScopeVersion findVersion(GradeFilter filter) {
+        return gradeRepository.findVersion(filter);
+    }
+
+    public List<GradeSummaryDTO> findGradeSummaries(GradeFilter filter) {
+        return gradeRepository.findSummaries(GradeSpecifications.matching(filter));
+    }
+
+    @Transactional(readOnly = true)
+    public GradePageDTO findGradePage(GradeFilter filter, int limit, String cursor) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        Specification<Grade> spec = GradeSpecifications.matching(filter);
+        if (cursor != null && !cursor.isBlank()) {
+            spec = spec.and(GradeSpecifications.after(GradeCursor.decode(cursor)));
+        }
+
+        // Fetch one extra row so we know whether another page exists
+        List<Grade> rows = gradeRepository.findFirst(spec, pageSize + 1);
+
+        boolean hasMore = rows.size() > pageSize;
+        List<Grade> page = hasMore ? rows.subList(0, pageSize) : rows;
+        List<GradeResponseDTO> items = toResponseDTOs(page);
+
+        String nextCursor = null;
+        if (hasMore) {
+            Grade last = page.get(page.size() - 1);
+            nextCursor = new GradeCursor(last.getStudentId(), last.getCourse(), last.getAssignment(), last.getSemesterId()).encode();
+        }
+        return new GradePageDTO(items, nextCursor);
+    }
+
+    // 📜 Every attempt matching the filter, newest first; the cursor is the last sequence number seen
+    @Transactional(readOnly = true)
+    public GradeHistoryPageDTO findHistory(GradeFilter filter, int limit, String cursor) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        Specification<GradeSubmission> spec = GradeSpecifications.matching(filter);
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                spec = spec.and(GradeSpecifications.before(Long.parseLong(cursor)));
+            } catch (NumberFormatException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+            }
+        }
+
+        // Fetch one extra row so we know whether another page exists
+        List<GradeSubmission> rows = gradeSubmissionRepository.findBy(spec,
+                query -> query.sortBy(Sort.by(Sort.Direction.DESC, "seq")).limit(pageSize + 1).all());
+
+        boolean hasMore = rows.size() > pageSize;
+        List<GradeSubmission> page = hasMore ? rows.subList(0, pageSize) : rows;
+        List<GradeSubmissionDTO> items = page.stream()
+                .map(s -> new GradeSubmissionDTO(s.getSeq(), s.getStudentId(), s.getCourse(), s.getAssignment(),
+                        s.getSemesterId(), s.getGrade(), s.getConsoleOutput(), s.getTimestamp(), s.getAdmin(),
+                        new HashMap<>(s.getSubmittedFileHashes())))
+                .toList();
+        return new GradeHistoryPageDTO(items, hasMore ? String.valueOf(page.get(page.size() - 1).getSeq()) : null);
+    }
+
+    // 🌊 Hands matching grades to the sink in small chunks and clears the persistence
+    // context after each one, so heap stays flat however large the result is
+    @Transactional(readOnly = true)
+    public void streamGrades(GradeFilter filter, Consumer<GradeResponseDTO> sink) {
+        List<Grade> chunk = new ArrayList<>(STREAM_CHUNK_SIZE);
+        try (Stream<Grade> grades = gradeRepository.streamAll(GradeSpecifications.matching(filter))) {
+            grades.forEach(grade -> {
+                chunk.add(grade);
+                if (chunk.size() == STREAM_CHUNK_SIZE) {
+                    emitChunk(chunk, sink);
+                }
+            });
+        }
+        emitChunk(chunk, sink);
+    }
+
+    /**
+     * Writes the matching grades as CSV straight from a JDBC cursor: no entities, no per-row maps,
+     * and the writer's buffer is the only thing that grows with the output.
+     */
+    @Transactional(readOnly = true)
+    public void exportCsv(GradeFilter filter, List<GradeExportColumn> columns, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), CSV_BUFFER_SIZE);
+        writer.write(columns.stream().map(GradeExportColumn::getHeader).collect(Collectors.joining(",")));
+        writer.write("\r\n");
+        try {
+            gradeRepository.exportRows(filter, columns, rs -> {
+                try {
+                    for (int i = 0; i < columns.size(); i++) {
+                        if (i > 0) {
+                            writer.write(',');
+                        }
+                        writeCsvField(writer, exportValue(rs, i + 1, columns.get(i)));
+                    }
+                    writer.write("\r\n");
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause(); // client went away; stop reading the cursor
+        }
+        writer.flush();
+    }
+
+    private static String exportValue(ResultSet rs, int index, GradeExportColumn column) throws SQLException {
+        return switch (column) {
+            case TIMESTAMP -> {
+                Timestamp timestamp = rs.getTimestamp(index);
+                yield timestamp != null ? timestamp.toInstant().toString() : null;
+            }
+            case CONSOLE_OUTPUT -> {
+                CompressedText text = CompressedText.fromColumn(rs.getBytes(index));
+                yield text != null ? text.getText() : null;
+            }
+            default -> rs.getString(index);
+        };
+    }
+
+    // RFC 4180: quote fields containing a separator, quote or line break
+    static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private void emitChunk(List<Grade> chunk, Consumer<GradeResponseDTO> sink) {
+        toResponseDTOs(chunk).forEach(sink);
+        chunk.clear();
+        entityManager.clear();
+    }
+
+    private static GradeId idOf(GradeRequestDTO dto) {
+        return new GradeId(dto.getStudentId(), dto.getCourse(), dto.getAssignment(), dto.getSemesterId());
+    }
+
+    private static GradeId idOf(Grade grade) {
+        return new GradeId(grade.getStudentId(), grade.getCourse(), grade.getAssignment(), grade.getSemesterId());
+    }
+
+    private static AssignmentStatsId statsKeyOf(Grade grade) {
+        return AssignmentStatsService.keyOf(grade.getAdmin(), grade.getCourse(), grade.getSemesterId(), grade.getAssignment());
+    }
+
+    private void applyRequest(Grade grade, GradeRequestDTO dto) {
         grade.setStudentId(dto.getStudentId());
         grade.setCourse(dto.getCourse());
         grade.setAssignment(dto.getAssignment());
         grade.setGrade(dto.getGrade());
         grade.setConsoleOutput(dto.getConsoleOutput());
         grade.setTimestamp(dto.getTimestamp() != null ? dto.getTimestamp() : Instant.now());
+        grade.setUpdatedAt(Instant.now());
         grade.setAdmin(dto.getAdmin());
         grade.setSemesterId(dto.getSemesterId());
+    }
 
-        // ✅ NEW: Set submitted files
-        if (dto.getSubmittedFiles() != null) {
-            grade.setSubmittedFiles(dto.getSubmittedFiles());
-        }
-
-        Grade saved = gradeRepository.save(grade);
-        System.out.println("✅ Grade saved successfully to DB!");
+    // Resolves every file body for the whole list with one blob lookup
+    private List<GradeResponseDTO> toResponseDTOs(List<Grade> grades) {
+        Map<String, String> contents = fileBlobService.loadContents(grades.stream()
+                .flatMap(g -> g.getSubmittedFileHashes().values().stream())
+                .toList());
+        return grades.stream()
+                .map(g -> toResponseDTO(g, fileBlobService.resolve(g.getSubmittedFileHashes(), contents)))
+                .toList();
+    }
 
-        // ✅ NEW: Return submitted files in response
+    private GradeResponseDTO toResponseDTO(Grade grade, Map<String, String> submittedFiles) {
         return new GradeResponseDTO(
-                saved.getStudentId(),
-                saved.getCourse(),
-                saved.getAssignment(),
-                saved.getGrade(),
-                saved.getConsoleOutput(),
-                saved.getTimestamp(),
-                saved.getAdmin(),
-                saved.getSemesterId(),
-                saved.getSubmittedFiles()
+                grade.getStudentId(),
+                grade.getCourse(),
+                grade.getAssignment(),
+                grade.getGrade(),
+                grade.getComment(),
+                grade.getConsoleOutput(),
+                grade.getTimestamp(),
+                grade.getAdmin(),
+                grade.getSemesterId(),
+                submittedFiles
         );
     }
-
-    public List<Grade> findGrades(String studentId, String admin, String course, String assignment, String semesterId) {
-        return gradeRepository.findByFilters(studentId, course, assignment, admin, semesterId);
-    }
 }
@@ -0,0 +1,242 @@
+package com.nour.ali.java_learning_backend.service;
+
+import com.nour.ali.java_learning_backend.dto.GradeSummaryDTO;
+import com.nour.ali.java_learning_backend.repository.GradeRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Server-Sent Events fan-out of committed grade writes (GET /grades/stream).
+ * <p>
+ * Committing writers only hand the changed ids to a small dispatch pool. The pool loads their
+ * summaries once and offers them to every matching subscriber's bounded queue without blocking.
+ * Writing to a client happens on a separate sender pool, one task at a time per subscriber, so a
+ * client that stops reading only ever holds its own sender thread. A subscriber whose queue is full
+ * is too slow to keep up, and one whose send has not returned within {@code send-timeout-ms} is
+ * stuck; both are disconnected, and the EventSource reconnects and can reload once.
+ */
+@Service
+public class GradeStreamService {
+
+    private static final String EVENT_NAME = "grade";
+
+    private final GradeRepository gradeRepository;
+    private final int queueCapacity;
+    private final int maxSubscribers;
+    private final long timeoutMs;
+    private final long sendTimeoutNanos;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService dispatcher;
+    private final ThreadPoolExecutor sender;
+
+    @Autowired
+    public GradeStreamService(GradeRepository gradeRepository,
+                              @Value("${grades.stream.queue-capacity:256}") int queueCapacity,
+                              @Value("${grades.stream.max-subscribers:500}") int maxSubscribers,
+                              @Value("${grades.stream.timeout-ms:1800000}") long timeoutMs,
+                              @Value("${grades.stream.dispatch-threads:4}") int dispatchThreads,
+                              @Value("${grades.stream.send-timeout-ms:10000}") long sendTimeoutMs) {
+        this.gradeRepository = gradeRepository;
+        this.queueCapacity = queueCapacity;
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMs = timeoutMs;
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.dispatcher = Executors.newFixedThreadPool(dispatchThreads, runnable -> {
+            Thread thread = new Thread(runnable, "grade-stream-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Threads only for sends actually in progress; at most one per subscriber
+        AtomicInteger senderNumber = new AtomicInteger();
+        this.sender = new ThreadPoolExecutor(0, maxSubscribers, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "grade-stream-send-" + senderNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        dispatcher.shutdownNow();
+        sender.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    // Null filters match everything
+    public SseEmitter subscribe(String admin, String course, String semesterId) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many grade streams open, please retry");
+        }
+        Subscriber subscriber = new Subscriber(new SseEmitter(timeoutMs), admin, course, semesterId,
+                new ArrayBlockingQueue<>(queueCapacity));
+        subscriber.emitter.onCompletion(() -> close(subscriber));
+        subscriber.emitter.onTimeout(() -> close(subscriber));
+        subscriber.emitter.onError(e -> close(subscriber));
+        subscribers.add(subscriber);
+        return subscriber.emitter;
+    }
+
+    // After commit, so subscribers never see a grade that was rolled back
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onGradesChanged(GradesChangedEvent event) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        dispatcher.execute(() -> publish(event));
+    }
+
+    /**
+     * 💓 Keeps idle connections open through proxies and finds the ones that are gone. A subscriber
+     * whose send has run longer than the send timeout is dropped; one with a send already pending
+     * gets the heartbeat from that send instead of a task of its own.
+     */
+    @Scheduled(fixedDelayString = "${grades.stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            long sendingSince = subscriber.sendingSince;
+            if (sendingSince != 0 && now - sendingSince > sendTimeoutNanos) {
+                System.out.println("🐢 Dropping grade stream subscriber stuck in a send");
+                drop(subscriber);
+                continue;
+            }
+            subscriber.heartbeatDue = true;
+            schedule(subscriber);
+        }
+    }
+
+    private void publish(GradesChangedEvent event) {
+        List<GradeSummaryDTO> grades = new ArrayList<>(gradeRepository.findSummaries(event.ids()).values());
+        for (Subscriber subscriber : subscribers) {
+            boolean offered = false;
+            for (GradeSummaryDTO grade : grades) {
+                if (!subscriber.matches(grade)) {
+                    continue;
+                }
+                if (!subscriber.queue.offer(grade)) {
+                    System.out.println("🐢 Dropping slow grade stream subscriber");
+                    drop(subscriber);
+                    offered = false;
+                    break;
+                }
+                offered = true;
+            }
+            if (offered) {
+                schedule(subscriber);
+            }
+        }
+    }
+
+    // Starts the subscriber's send task unless one is already queued or running
+    private void schedule(Subscriber subscriber) {
+        if (!subscriber.sendScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            sender.execute(() -> send(subscriber));
+        } catch (RejectedExecutionException e) {
+            // Every sender thread is stuck on some client; this one reconnects once its emitter times out
+            subscriber.sendScheduled.set(false);
+            close(subscriber);
+        }
+    }
+
+    /**
+     * Drains the queue and any due heartbeat, then gives up the subscriber's send slot; anything
+     * queued meanwhile is picked up before returning. The emitter is only completed here, because
+     * completing it waits for a send that may be blocked on the socket.
+     */
+    private void send(Subscriber subscriber) {
+        do {
+            if (!subscriber.closed) {
+                subscriber.sendingSince = System.nanoTime();
+                try {
+                    GradeSummaryDTO grade;
+                    while (!subscriber.closed && (grade = subscriber.queue.poll()) != null) {
+                        subscriber.emitter.send(SseEmitter.event().name(EVENT_NAME).data(grade));
+                    }
+                    if (!subscriber.closed && subscriber.heartbeatDue) {
+                        subscriber.heartbeatDue = false;
+                        subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    close(subscriber); // client went away
+                } finally {
+                    subscriber.sendingSince = 0;
+                }
+            }
+            if (subscriber.closed) {
+                subscriber.queue.clear();
+                subscriber.emitter.complete();
+                return;
+            }
+            subscriber.sendScheduled.set(false);
+        } while ((!subscriber.queue.isEmpty() || subscriber.heartbeatDue || subscriber.closed)
+                && subscriber.sendScheduled.compareAndSet(false, true));
+    }
+
+    // Stops feeding the subscriber; its send task completes the emitter once any write in progress returns
+    private void drop(Subscriber subscriber) {
+        if (close(subscriber)) {
+            subscriber.queue.clear();
+            schedule(subscriber);
+        }
+    }
+
+    private boolean close(Subscriber subscriber) {
+        subscriber.closed = true;
+        return subscribers.remove(subscriber);
+    }
+
+    // One open stream; identity equality, so two dashboards with the same filters are two subscribers
+    private static final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final String admin;
+        private final String course;
+        private final String semesterId;
+        private final BlockingQueue<GradeSummaryDTO> queue;
+        private final AtomicBoolean sendScheduled = new AtomicBoolean();
+        private volatile boolean heartbeatDue;
+        private volatile boolean closed;
+        private volatile long sendingSince; // System.nanoTime() when the current send began, 0 when idle
+
+        Subscriber(SseEmitter emitter, String admin, String course, String semesterId, BlockingQueue<GradeSummaryDTO> queue) {
+            this.emitter = emitter;
+            this.admin = admin;
+            this.course = course;
+            this.semesterId = semesterId;
+            this.queue = queue;
+        }
+
+        boolean matches(GradeSummaryDTO grade) {
+            return (admin == null || admin.equals(grade.getAdmin()))
+                    && (course == null || course.equals(grade.getCourse()))
+                    && (semesterId == null || semesterId.equals(grade.getSemesterId()));
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.nour.ali.java_learning_backend.service;
+
+import com.nour.ali.java_learning_backend.dto.GradebookDTO;
+import com.nour.ali.java_learning_backend.repository.GradeRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Gradebook matrices per admin/course/semester, cached until a grade or enrollment of that
+ * course/semester changes. Eviction happens after commit; a matrix computed while an eviction
+ * was going on is returned but not cached, so a stale read can never stick. Like GradeQueryCache,
+ * the cache is an LRU map bounded by entry count and by an estimate of the matrices' size.
+ */
+@Service
+public class GradebookService {
+
+    private static final long ENTRY_OVERHEAD = 256;
+    private static final long CELL_OVERHEAD = 48;
+
+    private record Key(String admin, String course, String semesterId) {}
+
+    private record Entry(GradebookDTO gradebook, long weight) {}
+
+    private final GradeRepository gradeRepository;
+    private final int maxEntries;
+    private final long maxWeight;
+    private final LinkedHashMap<Key, Entry> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+    private final AtomicLong evictions = new AtomicLong();
+
+    @Autowired
+    public GradebookService(GradeRepository gradeRepository,
+                            @Value("${gradebook.cache.max-entries:500}") int maxEntries,
+                            @Value("${gradebook.cache.max-weight-bytes:33554432}") long maxWeight) {
+        this.gradeRepository = gradeRepository;
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+    }
+
+    @Transactional(readOnly = true)
+    public GradebookDTO getGradebook(String admin, String course, String semesterId) {
+        Key key = new Key(admin, course, semesterId);
+        synchronized (this) {
+            Entry cached = cache.get(key);
+            if (cached != null) {
+                return cached.gradebook();
+            }
+        }
+        long evictionsBefore = evictions.get();
+        GradebookDTO gradebook = gradeRepository.findGradebook(admin, course, semesterId);
+        long entryWeight = weigh(gradebook);
+        synchronized (this) {
+            // Evictions take the same lock, so none can slip in between this check and the put
+            if (evictions.get() != evictionsBefore || entryWeight > maxWeight / 4) {
+                return gradebook; // one huge course must not flush everything else either
+            }
+            Entry previous = cache.put(key, new Entry(gradebook, entryWeight));
+            weight += entryWeight - (previous != null ? previous.weight() : 0);
+            Iterator<Entry> eldest = cache.values().iterator();
+            while ((cache.size() > maxEntries || weight > maxWeight) && eldest.hasNext()) {
+                weight -= eldest.next().weight();
+                eldest.remove();
+            }
+        }
+        return gradebook;
+    }
+
+    // A grade's admin can change on resubmit, so every admin's matrix for the course/semester goes
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onGradesChanged(GradesChangedEvent event) {
+        Set<List<String>> courseSemesters = event.ids().stream()
+                .map(id -> List.of(id.getCourse(), id.getSemesterId()))
+                .collect(Collectors.toSet());
+        evict(key -> courseSemesters.contains(List.of(key.course(), key.semesterId())));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEnrollmentsChanged(EnrollmentsChangedEvent event) {
+        evict(key -> key.course().equals(event.course()) && key.semesterId().equals(event.semesterId()));
+    }
+
+    private synchronized void evict(Predicate<Key> matching) {
+        evictions.incrementAndGet();
+        Iterator<Map.Entry<Key, Entry>> entries = cache.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<Key, Entry> entry = entries.next();
+            if (matching.test(entry.getKey())) {
+                weight -= entry.getValue().weight();
+                entries.remove();
+            }
+        }
+    }
+
+    // Rough heap footprint: string payloads (2 bytes per char) plus a fixed cost per name and cell
+    private static long weigh(GradebookDTO gradebook) {
+        long total = ENTRY_OVERHEAD;
+        for (List<String> names : List.of(gradebook.getStudents(), gradebook.getAssignments())) {
+            for (String name : names) {
+                total += CELL_OVERHEAD + 2L * name.length();
+            }
+        }
+        for (List<String> row : gradebook.getGrades()) {
+            total += CELL_OVERHEAD;
+            for (String grade : row) {
+                total += CELL_OVERHEAD + (grade != null ? 2L * grade.length() : 0);
+            }
+        }
+        return total;
+    }
+}
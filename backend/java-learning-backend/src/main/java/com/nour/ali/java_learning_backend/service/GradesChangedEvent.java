@@ -0,0 +1,10 @@
+package com.nour.ali.java_learning_backend.service;
+
+import com.nour.ali.java_learning_backend.model.GradeId;
+
+import java.util.List;
+import java.util.Set;
+
+// Published by GradeService whenever grade rows are written; listeners usually run after commit.
+// admins: every admin the written grades belonged to before or after the write.
+public record GradesChangedEvent(List<GradeId> ids, Set<String> admins) {}
@@ -1,67 +1,98 @@
 package com.nour.ali.java_learning_backend.service;
 
+import com.nour.ali.java_learning_backend.security.JwtPrincipal;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.security.Key;
 import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import jakarta.servlet.http.HttpServletRequest;
 
 @Service
 public class JwtService {
 
-    @Value("${jwt.secret}")
-    private String jwtSecret;
+    private final Key signingKey;
+    private final JwtParser parser; // thread-safe, so one is built for all requests
+    private final long jwtExpirationMs;
 
-    @Value("${jwt.expirationMs}")
-    private long jwtExpirationMs;
+    private record VerifiedToken(JwtPrincipal principal, long issuedAtMs, long expiresAtMs) {}
 
-    // 🔁 Include role as a claim again (just for logic, not Spring authorities)
+    private final Map<String, VerifiedToken> verified = new ConcurrentHashMap<>(); // SHA-256 of token -> claims
+    private final int maxCachedTokens;
+    private final TokenRevocationService tokenRevocationService;
+
+    public JwtService(@Value("${jwt.secret}") String jwtSecret,
+                      @Value("${jwt.expirationMs}") long jwtExpirationMs,
+                      @Value("${jwt.cache.max-entries:50000}") int maxCachedTokens,
+                      TokenRevocationService tokenRevocationService) {
+        this.signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        this.parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        this.jwtExpirationMs = jwtExpirationMs;
+        this.maxCachedTokens = maxCachedTokens;
+        this.tokenRevocationService = tokenRevocationService;
+    }
+
+    // 🔁 Role travels as a claim; JwtAuthenticationFilter also grants it as a ROLE_ authority
     public String generateToken(String subject, String role) {
         return Jwts.builder()
                 .setSubject(subject)
                 .claim("role", role)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + jwtExpirationMs))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    public boolean validateToken(String token) {
-        try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token);
-            return true;
-        } catch (JwtException e) {
-            return false;
+    /**
+     * Returns the caller's identity, or null when the token is malformed, forged, expired or revoked.
+     * A token's signature is verified the first time it is seen; after that its principal comes
+     * from {@link #verified}, keyed by the token's SHA-256, until the token's own expiry.
+     * Revocation is checked on every call, cached or not.
+     */
+    public JwtPrincipal parse(String token) {
+        String key = FileBlobService.hash(token);
+        VerifiedToken cached = verified.get(key);
+        if (cached != null) {
+            if (cached.expiresAtMs() > System.currentTimeMillis()) {
+                return accept(cached.principal(), cached.issuedAtMs());
+            }
+            verified.remove(key, cached);
+            return null; // expired since it was verified
         }
-    }
 
-    public String extractUsername(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        Claims claims;
+        try {
+            claims = parser.parseClaimsJws(token).getBody();
+        } catch (JwtException | IllegalArgumentException e) {
+            System.out.println("❌ JWT rejected: " + e.getMessage());
+            return null;
+        }
+        if (claims.getSubject() == null) {
+            return null;
+        }
+        JwtPrincipal principal = new JwtPrincipal(claims.getSubject(), claims.get("role", String.class));
+        long issuedAtMs = claims.getIssuedAt() != null ? claims.getIssuedAt().getTime() : 0;
+        // Tokens without an expiry are never cached; a full cache only costs the next request a verification
+        if (claims.getExpiration() != null && verified.size() < maxCachedTokens) {
+            verified.put(key, new VerifiedToken(principal, issuedAtMs, claims.getExpiration().getTime()));
+        }
+        return accept(principal, issuedAtMs);
     }
 
-    // 🔁 Reintroduce role extractor
-    public String extractRole(String token) {
-        return (String) Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .get("role");
+    private JwtPrincipal accept(JwtPrincipal principal, long issuedAtMs) {
+        return tokenRevocationService.isRevoked(principal.username(), issuedAtMs) ? null : principal;
     }
 
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+    // 🧹 Expired tokens are dropped on lookup too; this catches the ones never sent again
+    @Scheduled(fixedDelayString = "${jwt.cache.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        verified.values().removeIf(token -> token.expiresAtMs() <= now);
     }
 
     public String extractToken(HttpServletRequest request) {
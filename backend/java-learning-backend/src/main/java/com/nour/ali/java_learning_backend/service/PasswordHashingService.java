@@ -0,0 +1,136 @@
+package com.nour.ali.java_learning_backend.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * All bcrypt work runs here, on a small pool with a bounded queue, never on request threads.
+ * When the queue is full the caller gets a 503 at once, so a login storm at the start of a lab
+ * waits for (or is turned away by) this pool instead of taking every Tomcat thread.
+ * <p>
+ * The bcrypt cost is calibrated at startup so one hash takes about {@code auth.hashing.target-ms}
+ * on this machine. Passwords stored as plaintext or with a lower cost are rehashed after the
+ * next successful login (see {@link #needsRehash}).
+ */
+@Service
+public class PasswordHashingService {
+
+    private static final Pattern BCRYPT = Pattern.compile("^\\$2[aby]?\\$\\d\\d\\$[./0-9A-Za-z]{53}$");
+    private static final int MIN_COST = 10; // BCryptPasswordEncoder's own default
+    private static final int MAX_COST = 16;
+    private static final int CALIBRATION_COST = 8;
+
+    private final BCryptPasswordEncoder encoder;
+    private final ThreadPoolExecutor executor;
+
+    public PasswordHashingService(@Value("${auth.hashing.threads:0}") int threads,
+                                  @Value("${auth.hashing.queue-capacity:100}") int queueCapacity,
+                                  @Value("${auth.hashing.target-ms:100}") long targetMs) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        int cost = calibrate(targetMs);
+        this.encoder = new BCryptPasswordEncoder(cost);
+        System.out.println("🔑 bcrypt cost " + cost + " (target " + targetMs + " ms), " + poolSize + " hashing threads");
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    // Blocks the caller until hashed; for startup work, never a request thread
+    public String encode(String rawPassword) {
+        try {
+            return encodeAsync(rawPassword).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    public CompletableFuture<String> encodeAsync(String rawPassword) {
+        return submit(() -> encoder.encode(rawPassword));
+    }
+
+    // Hashes a whole roster in parallel; one task per pool thread, so it takes queue slots like a few logins
+    public List<String> encodeAll(List<String> rawPasswords) {
+        int threads = executor.getMaximumPoolSize();
+        int chunkSize = Math.max(1, (rawPasswords.size() + threads - 1) / threads);
+        List<CompletableFuture<List<String>>> chunks = new ArrayList<>();
+        for (int from = 0; from < rawPasswords.size(); from += chunkSize) {
+            List<String> chunk = rawPasswords.subList(from, Math.min(from + chunkSize, rawPasswords.size()));
+            chunks.add(submit(() -> chunk.stream().map(encoder::encode).toList()));
+        }
+        try {
+            return chunks.stream().flatMap(chunk -> chunk.join().stream()).toList();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    // Plaintext values left from before hashing are compared in constant time without using the pool
+    public CompletableFuture<Boolean> matches(String rawPassword, String storedPassword) {
+        if (rawPassword == null || storedPassword == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        if (!isHashed(storedPassword)) {
+            return CompletableFuture.completedFuture(MessageDigest.isEqual(
+                    rawPassword.getBytes(StandardCharsets.UTF_8), storedPassword.getBytes(StandardCharsets.UTF_8)));
+        }
+        return submit(() -> encoder.matches(rawPassword, storedPassword));
+    }
+
+    // True for plaintext and for hashes made with a lower cost than the calibrated one
+    public boolean needsRehash(String storedPassword) {
+        return !isHashed(storedPassword) || encoder.upgradeEncoding(storedPassword);
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> work) {
+        try {
+            return CompletableFuture.supplyAsync(work, executor);
+        } catch (RejectedExecutionException e) {
+            System.out.println("🚦 Password hashing queue full, rejecting request");
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many logins in progress, please retry");
+        }
+    }
+
+    private static boolean isHashed(String storedPassword) {
+        return BCRYPT.matcher(storedPassword).matches();
+    }
+
+    // Each extra cost step doubles the work, so time one cheap hash and extrapolate
+    private static int calibrate(long targetMs) {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(CALIBRATION_COST);
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            long start = System.nanoTime();
+            probe.encode("calibration");
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        double steps = Math.log((double) TimeUnit.MILLISECONDS.toNanos(targetMs) / Math.max(best, 1)) / Math.log(2);
+        return (int) Math.max(MIN_COST, Math.min(MAX_COST, CALIBRATION_COST + Math.round(steps)));
+    }
+}
@@ -0,0 +1,102 @@
+package com.nour.ali.java_learning_backend.service;
+
+import com.nour.ali.java_learning_backend.model.Student;
+import com.nour.ali.java_learning_backend.repository.StudentRepository;
+import com.stripe.exception.StripeException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stripe checkout links, created off the request path and stored on the student with their
+ * expiry. A stored link is handed out again until it is about to expire; only then is a new
+ * session requested. Stripe calls run on a small fixed pool, and a student never has more than
+ * one call in flight, so repeated logins or imports while Stripe is slow cost nothing extra.
+ */
+@Service
+public class PaymentLinkService {
+
+    private final StripeService stripeService;
+    private final StudentRepository studentRepository;
+    private final long minRemainingMs;
+    private final ExecutorService executor;
+    private final ConcurrentHashMap<String, CompletableFuture<CheckoutLink>> inFlight = new ConcurrentHashMap<>();
+
+    @Autowired
+    public PaymentLinkService(StripeService stripeService,
+                              StudentRepository studentRepository,
+                              @Value("${stripe.link.threads:8}") int threads,
+                              @Value("${stripe.link.min-remaining-ms:600000}") long minRemainingMs) {
+        this.stripeService = stripeService;
+        this.studentRepository = studentRepository;
+        this.minRemainingMs = minRemainingMs;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "stripe-link-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    // The stored link if it stays valid long enough to finish a checkout, otherwise null
+    public String usableLink(Student student) {
+        Instant expiresAt = student.getPaymentLinkExpiresAt();
+        if (student.getPaymentLink() == null || student.getPaymentLink().isBlank() || expiresAt == null) {
+            return null;
+        }
+        return expiresAt.isAfter(Instant.now().plusMillis(minRemainingMs)) ? student.getPaymentLink() : null;
+    }
+
+    /**
+     * Starts creating a new link for a saved student, or joins the one already being created.
+     * The link is stored before the future completes; a Stripe failure only fails the future.
+     */
+    public CompletableFuture<CheckoutLink> requestLink(String studentId) {
+        CompletableFuture<CheckoutLink> link = inFlight.computeIfAbsent(studentId,
+                id -> CompletableFuture.supplyAsync(() -> createAndStore(id), executor));
+        link.whenComplete((result, error) -> inFlight.remove(studentId, link));
+        return link;
+    }
+
+    // For callers that asked for a link explicitly: the stored one, or wait for a new one
+    public CheckoutLink getOrCreateLink(Student student) {
+        String stored = usableLink(student);
+        if (stored != null) {
+            return new CheckoutLink(stored, student.getPaymentLinkExpiresAt());
+        }
+        return requestLink(student.getId()).join();
+    }
+
+    // Re-reads the student first: a caller may have loaded it just before another request stored a link
+    private CheckoutLink createAndStore(String studentId) {
+        Optional<Student> student = studentRepository.findById(studentId);
+        String stored = student.map(this::usableLink).orElse(null);
+        if (stored != null) {
+            return new CheckoutLink(stored, student.get().getPaymentLinkExpiresAt());
+        }
+        try {
+            CheckoutLink link = stripeService.createCheckoutLink(studentId);
+            studentRepository.updatePaymentLink(studentId, link.url(), link.expiresAt());
+            System.out.println("💳 Stripe checkout link ready for " + studentId + " (expires " + link.expiresAt() + ")");
+            return link;
+        } catch (StripeException e) {
+            System.out.println("❌ Stripe error for " + studentId + ": " + e.getMessage());
+            throw new CompletionException(e);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.nour.ali.java_learning_backend.service;
+
+import com.nour.ali.java_learning_backend.model.AssignmentStatsId;
+
+import java.util.Set;
+
+// Published by AssignmentStatsService when a removed score was a row's min or max; the exact ones are rescanned after commit
+public record ScoreExtremesStaleEvent(Set<AssignmentStatsId> keys) {}
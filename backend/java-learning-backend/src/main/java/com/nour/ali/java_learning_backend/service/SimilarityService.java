@@ -0,0 +1,130 @@
+package com.nour.ali.java_learning_backend.service;
+
+import com.nour.ali.java_learning_backend.dto.SimilarityPairDTO;
+import com.nour.ali.java_learning_backend.model.GradeId;
+import com.nour.ali.java_learning_backend.model.MinHash;
+import com.nour.ali.java_learning_backend.repository.GradeRepository;
+import com.nour.ali.java_learning_backend.repository.SubmissionSignatureRepository;
+import com.nour.ali.java_learning_backend.repository.SubmissionSignatureRepositoryCustom.Candidate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Near-duplicate detection over submitted Java files. Each grade's current .java files get one
+ * MinHash signature when they are submitted, and its band hashes go into an LSH index
+ * (similarity_buckets). Finding similar pairs only compares students that share a bucket,
+ * so an assignment with thousands of submissions never needs the all-pairs comparison.
+ * Buckets shared by more than {@code similarity.max-bucket-size} students (starter code that
+ * everyone kept) are skipped, since every pair in them would be a candidate.
+ * <p>
+ * Indexing happens after the submission commits, in its own transaction, so submissions never
+ * wait on it; a grade resubmitted meanwhile is indexed from whatever files it has by then.
+ */
+@Service
+public class SimilarityService {
+
+    public static final int MAX_PAIRS = 1000;
+    private static final int CANDIDATES_PER_PAIR = 5; // candidates scored per pair asked for
+
+    private final SubmissionSignatureRepository submissionSignatureRepository;
+    private final GradeRepository gradeRepository;
+    private final FileBlobService fileBlobService;
+    private final TransactionTemplate indexTransaction;
+    private final int maxBucketSize;
+
+    @Autowired
+    public SimilarityService(SubmissionSignatureRepository submissionSignatureRepository,
+                             GradeRepository gradeRepository, FileBlobService fileBlobService,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${similarity.max-bucket-size:50}") int maxBucketSize) {
+        this.submissionSignatureRepository = submissionSignatureRepository;
+        this.gradeRepository = gradeRepository;
+        this.fileBlobService = fileBlobService;
+        this.indexTransaction = new TransactionTemplate(transactionManager);
+        this.indexTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.maxBucketSize = maxBucketSize;
+    }
+
+    // 🔍 The submission has committed; a failure here only leaves its previous signature in place
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSubmittedFilesChanged(SubmittedFilesChangedEvent event) {
+        try {
+            indexTransaction.executeWithoutResult(status -> index(event.ids()));
+        } catch (RuntimeException e) {
+            System.out.println("❌ Could not index " + event.ids().size() + " submissions for similarity: " + e.getMessage());
+        }
+    }
+
+    // Row locks first, so two indexers of one grade take turns and the later one sees the newer files
+    private void index(List<GradeId> ids) {
+        List<GradeId> existing = List.copyOf(gradeRepository.lockSummaries(ids).keySet());
+        Map<GradeId, Map<String, String>> hashes = gradeRepository.findFileHashes(existing);
+        Map<String, String> contents = fileBlobService.loadContents(hashes.values().stream()
+                .flatMap(fileHashes -> fileHashes.values().stream())
+                .toList());
+        Map<GradeId, int[]> signatures = new HashMap<>();
+        for (GradeId id : existing) {
+            Map<String, String> files = fileBlobService.resolve(hashes.getOrDefault(id, Map.of()), contents);
+            signatures.put(id, MinHash.signature(files.entrySet().stream()
+                    .filter(file -> file.getKey().toLowerCase(Locale.ROOT).endsWith(".java"))
+                    .filter(file -> file.getValue() != null)
+                    .map(Map.Entry::getValue)
+                    .toList()));
+        }
+        submissionSignatureRepository.replace(signatures);
+    }
+
+    /**
+     * Indexes up to {@code batchSize} grades stored before similarity indexing existed.
+     * Returns the number of grades indexed; 0 once nothing is left.
+     */
+    @Transactional
+    public int indexMissingBatch(int batchSize) {
+        List<GradeId> ids = submissionSignatureRepository.findUnindexed(batchSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        index(ids);
+        return ids.size();
+    }
+
+    // Most similar pairs first; admin (optional) limits both submissions to that admin's grades
+    @Transactional(readOnly = true)
+    public List<SimilarityPairDTO> findSimilar(String course, String semesterId, String assignment, String admin,
+                                               double minScore, int limit) {
+        int pairs = Math.max(1, Math.min(limit, MAX_PAIRS));
+        List<Candidate> candidates = submissionSignatureRepository.findCandidates(
+                course, semesterId, assignment, admin, maxBucketSize, pairs * CANDIDATES_PER_PAIR);
+        Set<String> students = new HashSet<>();
+        candidates.forEach(c -> {
+            students.add(c.studentA());
+            students.add(c.studentB());
+        });
+        Map<String, int[]> signatures = submissionSignatureRepository.findSignatures(course, semesterId, assignment, students);
+
+        return candidates.stream()
+                .filter(c -> signatures.containsKey(c.studentA()) && signatures.containsKey(c.studentB()))
+                .map(c -> new SimilarityPairDTO(c.studentA(), c.studentB(),
+                        MinHash.similarity(signatures.get(c.studentA()), signatures.get(c.studentB()))))
+                .filter(pair -> pair.getScore() >= minScore)
+                .sorted(Comparator.comparingDouble(SimilarityPairDTO::getScore).reversed()
+                        .thenComparing(SimilarityPairDTO::getStudentA)
+                        .thenComparing(SimilarityPairDTO::getStudentB))
+                .limit(pairs)
+                .toList();
+    }
+}
@@ -7,9 +7,15 @@ import com.stripe.param.checkout.SessionCreateParams;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.Instant;
+
 @Service
 public class StripeService {
 
+    // Stripe's default lifetime for a Checkout Session
+    private static final Duration DEFAULT_SESSION_LIFETIME = Duration.ofHours(24);
+
     @Value("${stripe.api.secretKey}")
     private String stripeApiKey;
 
@@ -19,7 +25,8 @@ public class StripeService {
     @Value("${stripe.checkout.cancelUrl}")
     private String cancelUrl;
 
-    public String generateCheckoutUrl(String studentId) throws StripeException {
+    // Calls Stripe on the caller's thread; request paths go through PaymentLinkService instead
+    public CheckoutLink createCheckoutLink(String studentId) throws StripeException {
         Stripe.apiKey = stripeApiKey;
 
         SessionCreateParams params = SessionCreateParams.builder()
@@ -47,6 +54,9 @@ public class StripeService {
                 .build();
 
         Session session = Session.create(params);
-        return session.getUrl();
+        Instant expiresAt = session.getExpiresAt() != null
+                ? Instant.ofEpochSecond(session.getExpiresAt())
+                : Instant.now().plus(DEFAULT_SESSION_LIFETIME);
+        return new CheckoutLink(session.getUrl(), expiresAt);
     }
 }
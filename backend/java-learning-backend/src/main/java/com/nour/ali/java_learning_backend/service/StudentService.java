@@ -2,6 +2,8 @@ package com.nour.ali.java_learning_backend.service;
 
 import com.nour.ali.java_learning_backend.dto.EnrolledStudentDTO;
 import com.nour.ali.java_learning_backend.dto.EnrollmentDTO;
+import com.nour.ali.java_learning_backend.dto.StudentCredentialDTO;
+import com.nour.ali.java_learning_backend.dto.StudentImportResultDTO;
 import com.nour.ali.java_learning_backend.dto.StudentRequestDTO;
 import com.nour.ali.java_learning_backend.dto.StudentResponseDTO;
 import com.nour.ali.java_learning_backend.model.Enrollment;
@@ -10,16 +12,27 @@ import com.nour.ali.java_learning_backend.model.Student;
 import com.nour.ali.java_learning_backend.repository.EnrollmentRepository;
 import com.nour.ali.java_learning_backend.repository.StudentRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.security.SecureRandom;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 @Service
@@ -27,18 +40,30 @@ public class StudentService {
 
     private final StudentRepository studentRepository;
     private final EnrollmentRepository enrollmentRepository;
-    private final PasswordEncoder passwordEncoder;
-    private final StripeService stripeService;
+    private final PasswordHashingService passwordHashingService;
+    private final PaymentLinkService paymentLinkService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TokenRevocationService tokenRevocationService;
+    private final Executor taskExecutor;
+    private final int maxImportRows;
 
     @Autowired
     public StudentService(StudentRepository studentRepository,
                           EnrollmentRepository enrollmentRepository,
-                          PasswordEncoder passwordEncoder,
-                          StripeService stripeService) {
+                          PasswordHashingService passwordHashingService,
+                          PaymentLinkService paymentLinkService,
+                          ApplicationEventPublisher eventPublisher,
+                          TokenRevocationService tokenRevocationService,
+                          @Qualifier("applicationTaskExecutor") Executor taskExecutor,
+                          @Value("${students.import.max-rows:5000}") int maxImportRows) {
         this.studentRepository = studentRepository;
         this.enrollmentRepository = enrollmentRepository;
-        this.passwordEncoder = passwordEncoder;
-        this.stripeService = stripeService;
+        this.passwordHashingService = passwordHashingService;
+        this.paymentLinkService = paymentLinkService;
+        this.eventPublisher = eventPublisher;
+        this.tokenRevocationService = tokenRevocationService;
+        this.taskExecutor = taskExecutor;
+        this.maxImportRows = maxImportRows;
     }
 
     public List<Student> getStudentsByAdminCourseSemester(String admin, String course, String semesterId) {
@@ -51,15 +76,46 @@ public class StudentService {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Enrollment not found");
         }
         enrollmentRepository.deleteById(id);
+        eventPublisher.publishEvent(new EnrollmentsChangedEvent(course, semesterId));
+        tokenRevocationService.revoke(username); // a token issued while enrolled must not outlive the enrollment
         return true;
     }
 
-    public boolean validatePassword(String rawPassword, String storedPassword) {
-        // If you're skipping hashing for now:
-        return Objects.equals(rawPassword, storedPassword);
+    /**
+     * Checks a login on the hashing pool. On success a plaintext or weaker stored password is
+     * rehashed in the background; if the pool is busy that simply waits for the next login.
+     * The future completes on the application task executor, so callers' database work never
+     * holds a hashing thread.
+     */
+    public CompletableFuture<Boolean> checkPassword(Student student, String rawPassword) {
+        String stored = student.getPassword();
+        return passwordHashingService.matches(rawPassword, stored).thenApplyAsync(valid -> {
+            if (valid && passwordHashingService.needsRehash(stored)) {
+                rehash(student.getId(), stored, rawPassword);
+            }
+            return valid;
+        }, taskExecutor);
+    }
+
+    private void rehash(String studentId, String stored, String rawPassword) {
+        try {
+            passwordHashingService.encodeAsync(rawPassword).thenAcceptAsync(hashed -> {
+                if (studentRepository.replacePassword(studentId, stored, hashed) > 0) {
+                    System.out.println("🔑 Rehashed password for student " + studentId);
+                }
+            }, taskExecutor);
+        } catch (ResponseStatusException e) {
+            // Pool saturated: keep the current hash and try again on the next login
+        }
+    }
 
-        // If hashing is reintroduced later:
-        // return passwordEncoder.matches(rawPassword, storedPassword);
+    public boolean isEnrolledByAdmin(String studentId, String admin) {
+        return enrollmentRepository.existsByIdStudentIdAndAdmin(studentId, admin);
+    }
+
+    // Which of the given students are enrolled with this admin, in one query
+    public Set<String> findStudentIdsEnrolledByAdmin(Collection<String> studentIds, String admin) {
+        return new HashSet<>(enrollmentRepository.findStudentIdsByAdminAndStudentIdIn(admin, studentIds));
     }
 
     public Student save(Student student) {
@@ -102,7 +158,8 @@ public class StudentService {
         );
     }
 
-    public Map<String, Object> addOrUpdateStudent(StudentRequestDTO dto) {
+    // Checks run on the calling thread; a new student's password is hashed on the pool and the rest is stored after it
+    public CompletableFuture<Map<String, Object>> addOrUpdateStudent(StudentRequestDTO dto) {
         System.out.println("📥 Incoming student add/update request:");
         System.out.println("  🔹 ID: " + dto.getId());
         System.out.println("  🔹 Email: " + dto.getEmail());
@@ -145,34 +202,36 @@ public class StudentService {
 
         String rawPassword = dto.getPassword();
 
-        if (existingById.isEmpty()) {
-            System.out.println("🆕 Creating new student record...");
+        if (existingById.isPresent()) {
+            System.out.println("✅ Existing student found: " + dto.getId());
+            return CompletableFuture.completedFuture(saveAndEnroll(dto, student, false, adminUsername, rawPassword));
+        }
+
+        System.out.println("🆕 Creating new student record...");
 
-            if (rawPassword == null || rawPassword.trim().isEmpty()) {
-                rawPassword = generateRandomPassword(6);
-                System.out.println("  🔐 Auto-generated password: " + rawPassword);
-            }
+        if (rawPassword == null || rawPassword.trim().isEmpty()) {
+            rawPassword = generateRandomPassword(6);
+            System.out.println("  🔐 Auto-generated password: " + rawPassword);
+        }
 
-            student.setPassword(rawPassword);
+        String password = rawPassword;
+        return passwordHashingService.encodeAsync(rawPassword).thenApplyAsync(hashed -> {
+            student.setPassword(hashed);
             student.setCreatedAt(Instant.now());
             student.setPaid(false);
             student.setActive(false);
             student.setPaymentDate(null);
+            return saveAndEnroll(dto, student, true, adminUsername, password);
+        }, taskExecutor);
+    }
 
-            try {
-                String checkoutUrl = stripeService.generateCheckoutUrl(dto.getId());
-                student.setPaymentLink(checkoutUrl);
-                System.out.println("  💳 Stripe checkout URL created");
-            } catch (Exception e) {
-                System.out.println("❌ Stripe error: " + e.getMessage());
-                throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to generate payment link");
-            }
-        } else {
-            System.out.println("✅ Existing student found: " + dto.getId());
-        }
-
+    private Map<String, Object> saveAndEnroll(StudentRequestDTO dto, Student student, boolean created,
+                                              String adminUsername, String rawPassword) {
         student = studentRepository.save(student);
         System.out.println("✅ Student saved to DB: " + student.getId());
+        if (created) {
+            paymentLinkService.requestLink(student.getId()); // 💳 stored when Stripe answers; login does not wait for it
+        }
 
         // 🔁 Smart enrollment update
         Optional<Enrollment> existingEnrollment = enrollmentRepository
@@ -182,6 +241,7 @@ public class StudentService {
             System.out.println("🗑 Deleting previous enrollment in course: " + dto.getCourse() +
                     " (was in semester: " + existingEnrollment.get().getSemesterId() + ")");
             enrollmentRepository.delete(existingEnrollment.get());
+            eventPublisher.publishEvent(new EnrollmentsChangedEvent(dto.getCourse(), existingEnrollment.get().getSemesterId()));
         }
 
         EnrollmentId newEnrollmentId = new EnrollmentId(dto.getId(), dto.getCourse(), dto.getSemesterId());
@@ -190,6 +250,7 @@ public class StudentService {
         newEnrollment.setStudent(student);
         newEnrollment.setAdmin(adminUsername);
         enrollmentRepository.save(newEnrollment);
+        eventPublisher.publishEvent(new EnrollmentsChangedEvent(dto.getCourse(), dto.getSemesterId()));
         System.out.println("✅ Created enrollment with updated semester: " + dto.getSemesterId());
 
         Map<String, Object> response = new HashMap<>();
@@ -209,6 +270,261 @@ public class StudentService {
 
 
 
+    /**
+     * Adds or updates a whole roster under admin with the same rules as {@link #addOrUpdateStudent},
+     * but per stage instead of per student: one query each for existing ids, taken emails and current
+     * enrollments, passwords hashed in parallel, then every write as a JDBC batch in one transaction.
+     * Checkout links for new students are requested afterwards and do not hold up the import.
+     * A bad row fails alone and is reported; results are in roster order, rows numbered from 1.
+     */
+    public List<StudentImportResultDTO> importStudents(String admin, List<StudentRequestDTO> roster) {
+        if (roster.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Roster is empty");
+        }
+        if (roster.size() > maxImportRows) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Roster has more than " + maxImportRows + " rows");
+        }
+        long start = System.currentTimeMillis();
+        StudentImportResultDTO[] results = new StudentImportResultDTO[roster.size()];
+
+        // 1. Row checks, including ids and emails repeated within the roster
+        Map<String, Integer> rowById = new LinkedHashMap<>();
+        Map<String, String> idByEmail = new HashMap<>();
+        for (int i = 0; i < roster.size(); i++) {
+            StudentRequestDTO dto = roster.get(i);
+            String id = trimToNull(dto.getId());
+            String email = trimToNull(dto.getEmail());
+            String error = id == null ? "Student ID cannot be empty"
+                    : email == null ? "Email cannot be empty"
+                    : trimToNull(dto.getCourse()) == null ? "Course is required"
+                    : trimToNull(dto.getSemesterId()) == null ? "Semester ID is required"
+                    : rowById.containsKey(id) ? "Student ID appears more than once in the roster"
+                    : idByEmail.containsKey(email) ? "Email appears more than once in the roster"
+                    : null;
+            if (error != null) {
+                results[i] = new StudentImportResultDTO(i + 1, id, "failed", null, error);
+                continue;
+            }
+            rowById.put(id, i);
+            idByEmail.put(email, id);
+        }
+
+        // 2. Set-based lookups: who exists, which emails are taken, which enrollments get replaced
+        Map<String, Student> existing = new HashMap<>();
+        studentRepository.findAllById(rowById.keySet()).forEach(student -> existing.put(student.getId(), student));
+        Map<String, String> ownerByEmail = new HashMap<>();
+        studentRepository.findByEmailIn(idByEmail.keySet()).forEach(student -> ownerByEmail.put(student.getEmail(), student.getId()));
+        List<Enrollment> previousEnrollments = enrollmentRepository.findByAdminAndIdStudentIdIn(admin, rowById.keySet());
+
+        Map<String, String> rawPasswords = new LinkedHashMap<>();
+        Map<String, String> emailsById = new HashMap<>();
+        for (Map.Entry<String, Integer> entry : rowById.entrySet()) {
+            String id = entry.getKey();
+            int i = entry.getValue();
+            String email = roster.get(i).getEmail().trim();
+            String owner = ownerByEmail.get(email);
+            if (owner != null && !owner.equals(id)) {
+                results[i] = new StudentImportResultDTO(i + 1, id, "failed", null, "Email is already in use by another student");
+            } else if (existing.containsKey(id)) {
+                if (!email.equals(existing.get(id).getEmail())) {
+                    emailsById.put(id, email);
+                }
+            } else {
+                String rawPassword = trimToNull(roster.get(i).getPassword());
+                rawPasswords.put(id, rawPassword != null ? rawPassword : generateRandomPassword(6));
+            }
+        }
+
+        // 3. New students, with their passwords hashed across the hashing pool
+        List<String> hashed = passwordHashingService.encodeAll(new ArrayList<>(rawPasswords.values()));
+        List<Student> created = new ArrayList<>();
+        int next = 0;
+        for (String id : rawPasswords.keySet()) {
+            Student student = new Student();
+            student.setId(id);
+            student.setEmail(roster.get(rowById.get(id)).getEmail().trim());
+            student.setPassword(hashed.get(next++));
+            student.setCreatedAt(Instant.now());
+            student.setPaid(false);
+            student.setActive(false);
+            created.add(student);
+        }
+
+        // 4. Every row still without a result is written
+        List<EnrollmentId> enrollments = new ArrayList<>();
+        Set<List<String>> changedCourseSemesters = new HashSet<>();
+        for (Map.Entry<String, Integer> entry : rowById.entrySet()) {
+            int i = entry.getValue();
+            if (results[i] == null) {
+                StudentRequestDTO dto = roster.get(i);
+                enrollments.add(new EnrollmentId(entry.getKey(), dto.getCourse().trim(), dto.getSemesterId().trim()));
+                changedCourseSemesters.add(List.of(dto.getCourse().trim(), dto.getSemesterId().trim()));
+            }
+        }
+        Set<String> enrolledIds = enrollments.stream().map(EnrollmentId::getStudentId).collect(Collectors.toSet());
+        Set<List<String>> enrolledCourses = enrollments.stream()
+                .map(id -> List.of(id.getStudentId(), id.getCourse()))
+                .collect(Collectors.toSet());
+        previousEnrollments.stream()
+                .filter(e -> enrolledCourses.contains(List.of(e.getId().getStudentId(), e.getCourse())))
+                .forEach(e -> changedCourseSemesters.add(List.of(e.getCourse(), e.getSemesterId())));
+        try {
+            studentRepository.saveRoster(created, emailsById, admin, enrollments);
+        } catch (DataIntegrityViolationException e) {
+            // Another request added one of these students or emails after the checks above
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Students changed during the import, please retry");
+        }
+        changedCourseSemesters.forEach(cs -> eventPublisher.publishEvent(new EnrollmentsChangedEvent(cs.get(0), cs.get(1))));
+        created.forEach(student -> paymentLinkService.requestLink(student.getId()));
+
+        int failed = 0;
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] != null) {
+                failed++;
+                continue;
+            }
+            String id = roster.get(i).getId().trim();
+            results[i] = rawPasswords.containsKey(id)
+                    ? new StudentImportResultDTO(i + 1, id, "created", rawPasswords.get(id), null)
+                    : new StudentImportResultDTO(i + 1, id, "updated", null, null);
+        }
+        System.out.println("📥 Imported roster for " + admin + ": " + enrolledIds.size() + " enrolled (" + created.size()
+                + " new), " + failed + " failed in " + (System.currentTimeMillis() - start) + " ms");
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Reads a CSV roster. The header names the columns in any order: id (or studentId), email,
+     * course, semesterId and optionally password. Fields may be quoted as in RFC 4180.
+     */
+    public List<StudentRequestDTO> parseRosterCsv(String csv) {
+        List<List<String>> records = readCsv(csv);
+        if (records.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Roster is empty");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> header = records.get(0);
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        columns.putIfAbsent("id", columns.get("studentid"));
+        for (String required : List.of("id", "email", "course", "semesterid")) {
+            if (columns.get(required) == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Roster header is missing the " + required + " column");
+            }
+        }
+
+        List<StudentRequestDTO> roster = new ArrayList<>();
+        for (List<String> record : records.subList(1, records.size())) {
+            StudentRequestDTO dto = new StudentRequestDTO();
+            dto.setId(field(record, columns.get("id")));
+            dto.setEmail(field(record, columns.get("email")));
+            dto.setCourse(field(record, columns.get("course")));
+            dto.setSemesterId(field(record, columns.get("semesterid")));
+            dto.setPassword(field(record, columns.get("password")));
+            roster.add(dto);
+        }
+        return roster;
+    }
+
+    // Records of fields; blank lines are skipped and quoted fields may contain commas, quotes and newlines
+    private static List<List<String>> readCsv(String csv) {
+        List<List<String>> records = new ArrayList<>();
+        List<String> record = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        int i = csv.startsWith("\uFEFF") ? 1 : 0;
+        for (; i < csv.length(); i++) {
+            char c = csv.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < csv.length() && csv.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                record.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\r' && i + 1 < csv.length() && csv.charAt(i + 1) == '\n') {
+                    i++;
+                }
+                endRecord(records, record, field);
+                record = new ArrayList<>();
+            } else {
+                field.append(c);
+            }
+        }
+        endRecord(records, record, field);
+        return records;
+    }
+
+    private static void endRecord(List<List<String>> records, List<String> record, StringBuilder field) {
+        record.add(field.toString());
+        field.setLength(0);
+        if (record.size() > 1 || !record.get(0).isBlank()) {
+            records.add(record);
+        }
+    }
+
+    private static String field(List<String> record, Integer column) {
+        return column != null && column < record.size() ? record.get(column) : null;
+    }
+
+    private static String trimToNull(String value) {
+        return value == null || value.trim().isEmpty() ? null : value.trim();
+    }
+
+    /**
+     * Gives every student enrolled with admin in course/semester a new random password. Hashing
+     * is spread over the hashing pool, all rows are written in one batched UPDATE, and tokens
+     * issued with the old passwords are revoked. Returns the new plaintext passwords, by student id.
+     */
+    public List<StudentCredentialDTO> rotatePasswords(String admin, String course, String semesterId) {
+        List<Student> students = studentRepository.findAllByAdminAndCourseAndSemester(admin, course, semesterId).stream()
+                .sorted(Comparator.comparing(Student::getId))
+                .toList();
+        if (students.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No students enrolled in this course");
+        }
+
+        List<String> rawPasswords = students.stream().map(s -> generateRandomPassword(6)).toList();
+        List<String> hashed = passwordHashingService.encodeAll(rawPasswords);
+
+        Map<String, String> passwordsById = new LinkedHashMap<>();
+        for (int i = 0; i < students.size(); i++) {
+            passwordsById.put(students.get(i).getId(), hashed.get(i));
+        }
+        studentRepository.updatePasswords(passwordsById);
+        tokenRevocationService.revokeAll(passwordsById.keySet());
+        System.out.println("🔄 Rotated " + students.size() + " passwords for " + admin + " " + course + "/" + semesterId);
+
+        List<StudentCredentialDTO> credentials = new ArrayList<>();
+        for (int i = 0; i < students.size(); i++) {
+            credentials.add(new StudentCredentialDTO(students.get(i).getId(), students.get(i).getEmail(), rawPasswords.get(i)));
+        }
+        return credentials;
+    }
+
+    public void writeCredentialsCsv(List<StudentCredentialDTO> credentials, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write("studentId,email,password\r\n");
+        for (StudentCredentialDTO credential : credentials) {
+            GradeService.writeCsvField(writer, credential.getStudentId());
+            writer.write(',');
+            GradeService.writeCsvField(writer, credential.getEmail());
+            writer.write(',');
+            GradeService.writeCsvField(writer, credential.getPassword());
+            writer.write("\r\n");
+        }
+        writer.flush();
+    }
+
     private String generateRandomPassword(int length) {
         if (length < 3) throw new IllegalArgumentException("Password length must be at least 3");
 
@@ -0,0 +1,8 @@
+package com.nour.ali.java_learning_backend.service;
+
+import com.nour.ali.java_learning_backend.model.GradeId;
+
+import java.util.List;
+
+// Published by GradeService when grades got new submitted files; the similarity index follows after commit
+public record SubmittedFilesChangedEvent(List<GradeId> ids) {}
@@ -0,0 +1,154 @@
+package com.nour.ali.java_learning_backend.service;
+
+import com.nour.ali.java_learning_backend.model.TokenRevocation;
+import com.nour.ali.java_learning_backend.repository.TokenRevocationRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Deny list for issued tokens. Revoking a subject stores "reject its tokens issued before now"
+ * in token_revocations. Every node keeps the live rows in an immutable snapshot, reloaded every
+ * few seconds and right after a local revocation commits. The snapshot is a Bloom filter over
+ * subjects in front of an exact map, so the check on every request is a few bit probes and,
+ * almost always, no map lookup. Students and admins share one subject namespace: revoking a
+ * student also logs out an admin with the same name, which only costs that admin a login.
+ * <p>
+ * A token's iat has whole seconds only, so revocations are stored truncated to the second. A
+ * login right after a revocation is then never rejected, at the price of still accepting a token
+ * issued earlier within that same second.
+ */
+@Service
+public class TokenRevocationService {
+
+    private final TokenRevocationRepository tokenRevocationRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final long tokenLifetimeMs;
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    @Autowired
+    public TokenRevocationService(TokenRevocationRepository tokenRevocationRepository,
+                                  ApplicationEventPublisher eventPublisher,
+                                  @Value("${jwt.expirationMs}") long tokenLifetimeMs) {
+        this.tokenRevocationRepository = tokenRevocationRepository;
+        this.eventPublisher = eventPublisher;
+        this.tokenLifetimeMs = tokenLifetimeMs;
+    }
+
+    // Loaded before the first request so a restart never accepts a revoked token
+    @PostConstruct
+    public void init() {
+        refresh();
+    }
+
+    // 🚫 Every token already issued to subject stops working; tokens issued afterwards are fine
+    @Transactional
+    public void revoke(String subject) {
+        tokenRevocationRepository.save(new TokenRevocation(subject, Instant.now().truncatedTo(ChronoUnit.SECONDS)));
+        eventPublisher.publishEvent(new TokenRevokedEvent(List.of(subject)));
+        System.out.println("🚫 Tokens revoked for " + subject);
+    }
+
+    // Same for many subjects at once, with a single reload of the snapshot
+    @Transactional
+    public void revokeAll(Collection<String> subjects) {
+        Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        tokenRevocationRepository.saveAll(subjects.stream().map(subject -> new TokenRevocation(subject, now)).toList());
+        eventPublisher.publishEvent(new TokenRevokedEvent(subjects));
+        System.out.println("🚫 Tokens revoked for " + subjects.size() + " subjects");
+    }
+
+    // Called for every authenticated request; must stay cheap and allocation-free
+    public boolean isRevoked(String subject, long issuedAtMs) {
+        Snapshot current = snapshot;
+        if (current.revokedBefore.isEmpty() || !current.mightContain(subject)) {
+            return false;
+        }
+        Long revokedBefore = current.revokedBefore.get(subject);
+        return revokedBefore != null && issuedAtMs < revokedBefore;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTokenRevoked(TokenRevokedEvent event) {
+        refresh();
+    }
+
+    // Picks up revocations made on other nodes
+    @Scheduled(fixedDelayString = "${jwt.revocation.refresh-ms:5000}", initialDelayString = "${jwt.revocation.refresh-ms:5000}")
+    public void refresh() {
+        List<TokenRevocation> live = tokenRevocationRepository.findByRevokedBeforeAfter(
+                Instant.now().minusMillis(tokenLifetimeMs));
+        Map<String, Long> revokedBefore = new HashMap<>();
+        live.forEach(r -> revokedBefore.put(r.getSubject(), r.getRevokedBefore().toEpochMilli()));
+        snapshot = new Snapshot(revokedBefore);
+    }
+
+    // 🧹 Rows older than a token lifetime can no longer match anything
+    @Scheduled(fixedDelayString = "${jwt.revocation.purge-interval-ms:3600000}")
+    @Transactional
+    public void purgeExpired() {
+        int deleted = tokenRevocationRepository.deleteOlderThan(Instant.now().minusMillis(tokenLifetimeMs));
+        if (deleted > 0) {
+            System.out.println("🧹 Purged " + deleted + " expired token revocations");
+        }
+    }
+
+    static final class Snapshot {
+
+        static final Snapshot EMPTY = new Snapshot(Map.of());
+
+        private static final int BITS_PER_SUBJECT = 16; // about 0.05% false positives with 7 probes
+        private static final int PROBES = 7;
+
+        private final Map<String, Long> revokedBefore;
+        private final long[] bits;
+        private final int mask;
+
+        Snapshot(Map<String, Long> revokedBefore) {
+            this.revokedBefore = revokedBefore;
+            int size = Integer.highestOneBit(Math.max(64, revokedBefore.size() * BITS_PER_SUBJECT - 1) << 1);
+            this.bits = new long[size >>> 6];
+            this.mask = size - 1;
+            revokedBefore.keySet().forEach(this::add);
+        }
+
+        private void add(String subject) {
+            int h1 = subject.hashCode();
+            int h2 = spread(h1);
+            for (int i = 0; i < PROBES; i++) {
+                int bit = (h1 + i * h2) & mask;
+                bits[bit >>> 6] |= 1L << bit;
+            }
+        }
+
+        boolean mightContain(String subject) {
+            int h1 = subject.hashCode();
+            int h2 = spread(h1);
+            for (int i = 0; i < PROBES; i++) {
+                int bit = (h1 + i * h2) & mask;
+                if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // Second, independent-enough hash for double hashing; odd so probes cover the whole table
+        private static int spread(int h) {
+            h *= 0x9E3779B9;
+            return (h ^ (h >>> 16)) | 1;
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.nour.ali.java_learning_backend.service;
+
+import java.util.Collection;
+
+// Published when subjects' tokens are revoked, so this node stops accepting them right after commit
+public record TokenRevokedEvent(Collection<String> subjects) {}
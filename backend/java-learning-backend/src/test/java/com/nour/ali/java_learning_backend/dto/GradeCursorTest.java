@@ -0,0 +1,53 @@
+package com.nour.ali.java_learning_backend.dto;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class GradeCursorTest {
+
+    @Test
+    void roundTripsAllKeyColumns() {
+        GradeCursor cursor = GradeCursor.decode(new GradeCursor("s1", "CS101", "HW 1/2", "F25").encode());
+
+        assertEquals("s1", cursor.getStudentId());
+        assertEquals("CS101", cursor.getCourse());
+        assertEquals("HW 1/2", cursor.getAssignment());
+        assertEquals("F25", cursor.getSemesterId());
+    }
+
+    @Test
+    void keepsEmptyPartsAndNonAsciiText() {
+        GradeCursor cursor = GradeCursor.decode(new GradeCursor("élève", "", "Übung", "").encode());
+
+        assertEquals("élève", cursor.getStudentId());
+        assertEquals("", cursor.getCourse());
+        assertEquals("Übung", cursor.getAssignment());
+        assertEquals("", cursor.getSemesterId());
+    }
+
+    @Test
+    void encodedCursorIsUrlSafe() {
+        String encoded = new GradeCursor("s?>", "c~~", "a??", "t>>").encode();
+
+        assertFalse(encoded.contains("+") || encoded.contains("/") || encoded.contains("="), encoded);
+    }
+
+    @Test
+    void rejectsMalformedCursorsAsBadRequest() {
+        String threeParts = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("s1\u0000CS101\u0000HW1".getBytes(StandardCharsets.UTF_8));
+
+        for (String cursor : new String[]{"not base64!", threeParts}) {
+            ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> GradeCursor.decode(cursor));
+            assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.nour.ali.java_learning_backend.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompressedTextTest {
+
+    private static final int MIN_BYTES = 256;
+    private static final String SOURCE = "public class Main { /* é */ }\n".repeat(100);
+
+    @Test
+    void longTextIsDeflatedAndRoundTrips() {
+        byte[] column = CompressedText.of(SOURCE).encode(MIN_BYTES, Deflater.DEFAULT_COMPRESSION);
+
+        assertEquals(CompressedText.FORMAT_DEFLATE, column[0]);
+        assertTrue(column.length < SOURCE.getBytes(StandardCharsets.UTF_8).length / 4, "column " + column.length);
+        assertEquals(SOURCE, CompressedText.fromColumn(column).getText());
+    }
+
+    @Test
+    void textBelowThresholdIsStoredPlain() {
+        String shortText = "a".repeat(MIN_BYTES - 1);
+
+        byte[] column = CompressedText.of(shortText).encode(MIN_BYTES, Deflater.DEFAULT_COMPRESSION);
+
+        assertEquals(CompressedText.FORMAT_PLAIN, column[0]);
+        assertEquals(MIN_BYTES, column.length);
+        assertEquals(shortText, CompressedText.fromColumn(column).getText());
+    }
+
+    @Test
+    void textThatDoesNotShrinkIsStoredPlain() {
+        // Level 0 only wraps the input in stored blocks, so the result is always larger
+        byte[] column = CompressedText.of(SOURCE).encode(MIN_BYTES, Deflater.NO_COMPRESSION);
+
+        assertEquals(CompressedText.FORMAT_PLAIN, column[0]);
+        assertEquals(SOURCE, CompressedText.fromColumn(column).getText());
+    }
+
+    @Test
+    void storedValueIsWrittenBackUntouched() {
+        byte[] column = CompressedText.of(SOURCE).encode(MIN_BYTES, Deflater.BEST_SPEED);
+
+        assertSame(column, CompressedText.fromColumn(column).encode(MIN_BYTES, Deflater.BEST_COMPRESSION));
+    }
+
+    @Test
+    void openStreamYieldsUtf8BytesForEveryForm() throws IOException {
+        byte[] expected = SOURCE.getBytes(StandardCharsets.UTF_8);
+        byte[] deflated = CompressedText.of(SOURCE).encode(MIN_BYTES, Deflater.DEFAULT_COMPRESSION);
+        byte[] plain = CompressedText.of(SOURCE).encode(Integer.MAX_VALUE, Deflater.DEFAULT_COMPRESSION);
+
+        for (CompressedText text : new CompressedText[]{CompressedText.of(SOURCE),
+                CompressedText.fromColumn(deflated), CompressedText.fromColumn(plain)}) {
+            try (InputStream in = text.openStream()) {
+                assertArrayEquals(expected, in.readAllBytes());
+            }
+        }
+        try (InputStream in = CompressedText.fromColumn(new byte[0]).openStream()) {
+            assertEquals(-1, in.read());
+        }
+    }
+
+    @Test
+    void nullsAndUnknownFormats() {
+        assertNull(CompressedText.of(null));
+        assertNull(CompressedText.fromColumn(null));
+        assertEquals("", CompressedText.fromColumn(new byte[0]).getText());
+        assertThrows(IllegalStateException.class, () -> CompressedText.fromColumn(new byte[]{9, 1}).getText());
+    }
+}
@@ -0,0 +1,78 @@
+package com.nour.ali.java_learning_backend.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MinHashTest {
+
+    private static final String ORIGINAL = """
+            public class Main {
+                public static void main(String[] args) {
+                    int total = 0;
+                    for (int i = 0; i < 10; i++) {
+                        total += i * i;
+                    }
+                    System.out.println("Total: " + total);
+                }
+            }
+            """;
+
+    @Test
+    void tokenizeKeepsKeywordsAndNormalizesNamesAndLiterals() {
+        assertEquals(List.of("int", "I", "=", "N", ";", "I", "=", "S", "+", "C", ";"),
+                MinHash.tokenize("int count = 42; label = \"a \\\" b\" + 'x';"));
+    }
+
+    @Test
+    void tokenizeSkipsCommentsAndLayout() {
+        assertEquals(MinHash.tokenize("return a+b;"),
+                MinHash.tokenize("return /* sum */ a\n    + b; // done"));
+    }
+
+    @Test
+    void renamedCopyHasTheSameSignature() {
+        String renamed = ORIGINAL.replace("total", "sum").replace("Total: ", "Sum is ").replace("10", "20")
+                .replace("        ", "\t");
+
+        assertEquals(1.0, MinHash.similarity(MinHash.signature(List.of(ORIGINAL)), MinHash.signature(List.of(renamed))));
+    }
+
+    @Test
+    void differentProgramsAreNotSimilar() {
+        String other = """
+                import java.util.Scanner;
+                class Echo {
+                    void run() throws Exception {
+                        try (Scanner in = new Scanner(System.in)) {
+                            while (in.hasNextLine()) {
+                                if (in.nextLine().isEmpty()) break;
+                            }
+                        }
+                    }
+                }
+                """;
+
+        double score = MinHash.similarity(MinHash.signature(List.of(ORIGINAL)), MinHash.signature(List.of(other)));
+
+        assertTrue(score < 0.2, "score " + score);
+    }
+
+    @Test
+    void sourcesTooShortForAShingleHaveNoSignature() {
+        assertNull(MinHash.signature(List.of("int x;", "")));
+    }
+
+    @Test
+    void signatureRoundTripsThroughBytes() {
+        int[] signature = MinHash.signature(List.of(ORIGINAL));
+
+        assertArrayEquals(signature, MinHash.fromBytes(MinHash.toBytes(signature)));
+        assertNull(MinHash.fromBytes(new byte[3]));
+    }
+}
@@ -0,0 +1,93 @@
+package com.nour.ali.java_learning_backend.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuantileSketchTest {
+
+    private static final double[] QUANTILES = {0, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99, 1};
+
+    @Test
+    void quantilesAreWithinRelativeAccuracy() {
+        Random random = new Random(42);
+        double[] scores = new double[10_000];
+        QuantileSketch sketch = new QuantileSketch();
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = 0.5 + random.nextDouble() * 99.5;
+            sketch.add(scores[i]);
+        }
+        Arrays.sort(scores);
+
+        for (double q : QUANTILES) {
+            double exact = scores[(int) Math.floor(q * (scores.length - 1))];
+            double estimate = sketch.quantile(q);
+            assertTrue(Math.abs(estimate - exact) <= exact * QuantileSketch.RELATIVE_ACCURACY + 1e-9,
+                    "q=" + q + " exact=" + exact + " estimate=" + estimate);
+        }
+    }
+
+    @Test
+    void mergedSketchMatchesSketchOfAllValues() {
+        Random random = new Random(7);
+        QuantileSketch left = new QuantileSketch();
+        QuantileSketch right = new QuantileSketch();
+        QuantileSketch all = new QuantileSketch();
+        for (int i = 0; i < 2_000; i++) {
+            double score = Math.round(random.nextDouble() * 1000) / 10.0;
+            (i % 3 == 0 ? left : right).add(score);
+            all.add(score);
+        }
+
+        left.merge(right);
+
+        assertEquals(all.getCount(), left.getCount());
+        assertArrayEquals(all.toBytes(), left.toBytes());
+        for (double q : QUANTILES) {
+            assertEquals(all.quantile(q), left.quantile(q));
+        }
+    }
+
+    @Test
+    void removeUndoesAdd() {
+        QuantileSketch sketch = new QuantileSketch();
+        sketch.add(85);
+        sketch.add(42.5);
+        byte[] before = sketch.toBytes();
+
+        sketch.add(17);
+        sketch.remove(17);
+
+        assertArrayEquals(before, sketch.toBytes());
+        assertEquals(2, sketch.getCount());
+    }
+
+    @Test
+    void roundTripsThroughBytes() {
+        QuantileSketch sketch = new QuantileSketch();
+        for (double score : new double[]{-5, 0, 0, 12.5, 99, 100}) {
+            sketch.add(score);
+        }
+
+        QuantileSketch copy = QuantileSketch.fromBytes(sketch.toBytes());
+
+        assertEquals(6, copy.getCount());
+        for (double q : QUANTILES) {
+            assertEquals(sketch.quantile(q), copy.quantile(q));
+        }
+        assertEquals(0.0, copy.quantile(0.25));
+    }
+
+    @Test
+    void emptySketchHasNoQuantiles() {
+        assertNull(new QuantileSketch().quantile(0.5));
+        assertNull(QuantileSketch.fromBytes(null).quantile(0.5));
+        assertEquals(0, QuantileSketch.fromBytes(new byte[0]).getCount());
+    }
+}
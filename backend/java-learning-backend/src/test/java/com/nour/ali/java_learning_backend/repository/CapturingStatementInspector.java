@@ -0,0 +1,19 @@
+package com.nour.ali.java_learning_backend.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+// Remembers the last SQL Hibernate prepared so tests can EXPLAIN exactly what runs in production
+public class CapturingStatementInspector implements StatementInspector {
+
+    private static volatile String lastSql;
+
+    @Override
+    public String inspect(String sql) {
+        lastSql = sql;
+        return sql;
+    }
+
+    public static String lastSql() {
+        return lastSql;
+    }
+}
@@ -0,0 +1,150 @@
+package com.nour.ali.java_learning_backend.repository;
+
+import com.nour.ali.java_learning_backend.dto.GradeFilter;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Seeds a realistic grades table in PostgreSQL and EXPLAINs the SQL that GradeSpecifications
+ * generates for the common filter shapes. Fails if any of them plans a sequential scan of grades.
+ *
+ * Runs only when TEST_POSTGRES_URL (plus TEST_POSTGRES_USER / TEST_POSTGRES_PASSWORD) point at a
+ * throwaway database, e.g. jdbc:postgresql://localhost:5432/grades_plan_test.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+                "com.nour.ali.java_learning_backend.repository.CapturingStatementInspector"
+})
+@EnabledIfEnvironmentVariable(named = "TEST_POSTGRES_URL", matches = ".+")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class GradeQueryPlanTest {
+
+    private static final int STUDENTS = 400;
+    private static final int COURSES = 30;
+    private static final int ASSIGNMENTS = 12;
+    private static final String[] SEMESTERS = {"F24", "S25", "F25"};
+
+    @Autowired
+    private GradeRepository gradeRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getenv("TEST_POSTGRES_URL"));
+        registry.add("spring.datasource.username", () -> System.getenv("TEST_POSTGRES_USER"));
+        registry.add("spring.datasource.password", () -> System.getenv("TEST_POSTGRES_PASSWORD"));
+        registry.add("spring.datasource.driverClassName", () -> "org.postgresql.Driver");
+    }
+
+    @BeforeAll
+    void seed() {
+        jdbcTemplate.execute("TRUNCATE grades CASCADE");
+
+        // Each student takes 3 courses per semester; every course has its own professor
+        List<Object[]> rows = new ArrayList<>();
+        Timestamp now = Timestamp.from(Instant.now());
+        for (int s = 0; s < STUDENTS; s++) {
+            for (int sem = 0; sem < SEMESTERS.length; sem++) {
+                for (int k = 0; k < 3; k++) {
+                    int course = (s * 7 + sem * 3 + k * 11) % COURSES;
+                    for (int a = 0; a < ASSIGNMENTS; a++) {
+                        rows.add(new Object[]{"student" + s, "course" + course, "hw" + a, SEMESTERS[sem],
+                                String.valueOf((s + a) % 101), now, "prof" + course});
+                    }
+                }
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO grades (student_id, course, assignment, semester_id, grade, timestamp, admin) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?) ON CONFLICT DO NOTHING", rows);
+        jdbcTemplate.execute("ANALYZE grades");
+    }
+
+    @AfterAll
+    void cleanUp() {
+        jdbcTemplate.execute("TRUNCATE grades CASCADE");
+    }
+
+    @Test
+    void adminCourseSemesterUsesIndex() {
+        assertNoSeqScan(new GradeFilter(null, "course4", null, "prof4", "F25"), "course4", "prof4", "F25");
+    }
+
+    @Test
+    void studentSemesterUsesIndex() {
+        assertNoSeqScan(new GradeFilter("student17", null, null, null, "S25"), "student17", "S25");
+    }
+
+    @Test
+    void courseAssignmentUsesIndex() {
+        assertNoSeqScan(new GradeFilter(null, "course9", "hw3", null, null), "course9", "hw3");
+    }
+
+    @Test
+    void studentOnlyUsesIndex() {
+        assertNoSeqScan(new GradeFilter("student42", null, null, null, null), "student42");
+    }
+
+    // Bind values must be listed in the order GradeSpecifications adds predicates
+    private void assertNoSeqScan(GradeFilter filter, String... bindValues) {
+        gradeRepository.findSummaries(GradeSpecifications.matching(filter));
+        String sql = CapturingStatementInspector.lastSql();
+        assertNotNull(sql, "No SQL captured");
+
+        String plan = explain(sql, bindValues);
+        assertFalse(plan.contains("Seq Scan on grades"), "Sequential scan for " + filter + ":\n" + sql + "\n" + plan);
+    }
+
+    private String explain(String sql, String... bindValues) {
+        StringBuilder parameterized = new StringBuilder();
+        int index = 1;
+        for (char c : sql.toCharArray()) {
+            if (c == '?') {
+                parameterized.append('$').append(index++);
+            } else {
+                parameterized.append(c);
+            }
+        }
+
+        StringBuilder args = new StringBuilder();
+        for (int i = 0; i < bindValues.length; i++) {
+            args.append(i == 0 ? "" : ", ").append('\'').append(bindValues[i].replace("'", "''")).append('\'');
+        }
+
+        // PREPARE is per session, so keep everything on one connection
+        return jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("PREPARE plan_check AS " + parameterized);
+                StringBuilder plan = new StringBuilder();
+                try (ResultSet rs = statement.executeQuery("EXPLAIN EXECUTE plan_check(" + args + ")")) {
+                    while (rs.next()) {
+                        plan.append(rs.getString(1)).append('\n');
+                    }
+                }
+                statement.execute("DEALLOCATE plan_check");
+                return plan.toString();
+            }
+        });
+    }
+}
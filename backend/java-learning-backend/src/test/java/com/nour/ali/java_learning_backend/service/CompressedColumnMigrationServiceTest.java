@@ -0,0 +1,67 @@
+package com.nour.ali.java_learning_backend.service;
+
+import com.nour.ali.java_learning_backend.model.CompressedText;
+import com.nour.ali.java_learning_backend.model.CompressedTextConverter;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CompressedColumnMigrationServiceTest {
+
+    private static final List<String> KEY = List.of("id");
+
+    private final CompressedTextConverter converter = new CompressedTextConverter(256, 6);
+    private Runnable afterSelect = () -> {};
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+            "jdbc:h2:mem:migration-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1", "sa", "")) {
+        @Override
+        public List<Map<String, Object>> queryForList(String sql, Object... args) {
+            List<Map<String, Object>> rows = super.queryForList(sql, args);
+            afterSelect.run();
+            return rows;
+        }
+    };
+    private final CompressedColumnMigrationService service = new CompressedColumnMigrationService(jdbcTemplate, converter);
+
+    @Test
+    void movesLegacyTextIntoTheDataColumn() {
+        createTable();
+        jdbcTemplate.update("INSERT INTO outputs (id, legacy) VALUES (1, 'old output'), (2, 'other output')");
+
+        assertEquals(2, service.migrateBatch("outputs", KEY, "legacy", "data", 10));
+        assertEquals(0, service.migrateBatch("outputs", KEY, "legacy", "data", 10));
+
+        assertEquals("old output", dataOf(1));
+        assertEquals("other output", dataOf(2));
+        assertNull(jdbcTemplate.queryForObject("SELECT legacy FROM outputs WHERE id = 1", String.class));
+    }
+
+    @Test
+    void rowRewrittenAfterTheSelectKeepsItsNewData() {
+        createTable();
+        jdbcTemplate.update("INSERT INTO outputs (id, legacy) VALUES (1, 'old output'), (2, 'other output')");
+        afterSelect = () -> jdbcTemplate.update("UPDATE outputs SET data = ? WHERE id = 1", converter.encode("new submission"));
+
+        service.migrateBatch("outputs", KEY, "legacy", "data", 10);
+        afterSelect = () -> {};
+
+        assertEquals("new submission", dataOf(1));
+        assertEquals("other output", dataOf(2));
+        assertEquals(0, service.migrateBatch("outputs", KEY, "legacy", "data", 10));
+    }
+
+    private void createTable() {
+        jdbcTemplate.execute("CREATE TABLE outputs (id INT PRIMARY KEY, legacy TEXT, data VARBINARY)");
+    }
+
+    private String dataOf(int id) {
+        byte[] column = jdbcTemplate.queryForObject("SELECT data FROM outputs WHERE id = ?", byte[].class, id);
+        return CompressedText.fromColumn(column).getText();
+    }
+}
@@ -0,0 +1,43 @@
+package com.nour.ali.java_learning_backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CsvFieldTest {
+
+    @Test
+    void plainValuesAreWrittenAsIs() throws IOException {
+        assertEquals("s1", field("s1"));
+        assertEquals("92.5", field("92.5"));
+        assertEquals(" padded ", field(" padded "));
+        assertEquals("", field(""));
+    }
+
+    @Test
+    void nullIsAnEmptyField() throws IOException {
+        assertEquals("", field(null));
+    }
+
+    @Test
+    void separatorsAndLineBreaksAreQuoted() throws IOException {
+        assertEquals("\"Doe, Jane\"", field("Doe, Jane"));
+        assertEquals("\"line 1\nline 2\"", field("line 1\nline 2"));
+        assertEquals("\"line 1\r\nline 2\"", field("line 1\r\nline 2"));
+    }
+
+    @Test
+    void quotesAreDoubledInsideQuotes() throws IOException {
+        assertEquals("\"say \"\"hi\"\"\"", field("say \"hi\""));
+        assertEquals("\"\"\"\"", field("\""));
+    }
+
+    private static String field(String value) throws IOException {
+        StringWriter writer = new StringWriter();
+        GradeService.writeCsvField(writer, value);
+        return writer.toString();
+    }
+}
@@ -0,0 +1,75 @@
+package com.nour.ali.java_learning_backend.service;
+
+import com.nour.ali.java_learning_backend.dto.GradeRequestDTO;
+import com.nour.ali.java_learning_backend.model.Student;
+import com.nour.ali.java_learning_backend.repository.StudentRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+
+/**
+ * A batch that fails after its grade, file, blob and history rows were written must leave none
+ * of them behind; the stats update is the last write in a submission, so it is made to fail.
+ */
+@SpringBootTest
+class GradeBatchRollbackTest {
+
+    private static final String STUDENT = "rollback-student";
+
+    @Autowired
+    private GradeService gradeService;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private AssignmentStatsService assignmentStatsService;
+
+    @Test
+    void failurePartwayThroughBatchWritesNothing() {
+        Student student = new Student();
+        student.setId(STUDENT);
+        student.setEmail(STUDENT + "@example.com");
+        student.setPassword("unused");
+        student.setActive(true);
+        student.setPaid(true);
+        student.setCreatedAt(Instant.now());
+        studentRepository.save(student);
+        long blobsBefore = count("SELECT COUNT(*) FROM file_blobs");
+        doThrow(new IllegalStateException("stats unavailable")).when(assignmentStatsService).apply(anyList());
+
+        List<GradeRequestDTO> batch = List.of(
+                submission("HW1", Map.of("Main.java", "class Main { int rollbackOne; }")),
+                submission("HW2", Map.of("Main.java", "class Main { int rollbackTwo; }")));
+
+        assertThrows(IllegalStateException.class, () -> gradeService.submitGrades(batch));
+
+        assertEquals(0, count("SELECT COUNT(*) FROM grades WHERE student_id = ?", STUDENT));
+        assertEquals(0, count("SELECT COUNT(*) FROM submitted_files WHERE student_id = ?", STUDENT));
+        assertEquals(0, count("SELECT COUNT(*) FROM grade_submissions WHERE student_id = ?", STUDENT));
+        assertEquals(blobsBefore, count("SELECT COUNT(*) FROM file_blobs"));
+    }
+
+    private static GradeRequestDTO submission(String assignment, Map<String, String> files) {
+        return new GradeRequestDTO(STUDENT, "CS101", assignment, "90", "ok",
+                Instant.parse("2025-01-01T00:00:00Z"), "prof", "F25", files);
+    }
+
+    private long count(String sql, Object... args) {
+        return jdbcTemplate.queryForObject(sql, Long.class, args);
+    }
+}
@@ -0,0 +1,162 @@
+package com.nour.ali.java_learning_backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nour.ali.java_learning_backend.dto.GradeRequestDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Replays segments left in a temporary journal directory against a mocked GradeService, covering
+ * torn lines, poison entries, transient database failures and resuming after a committed chunk.
+ */
+class GradeJournalTest {
+
+    private static final String SEGMENT = "segment-00000000000000000001.jsonl";
+
+    @TempDir
+    Path directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final GradeService gradeService = mock(GradeService.class);
+    private final List<List<String>> submitted = new ArrayList<>();
+    private Function<List<GradeRequestDTO>, RuntimeException> failure = batch -> null;
+    private GradeJournal journal;
+
+    @AfterEach
+    void stopJournal() throws Exception {
+        if (journal != null) {
+            journal.stop();
+        }
+    }
+
+    @Test
+    void replaysLeftoverSegmentAndDeletesIt() throws Exception {
+        writeSegment(line("s1"), line("s2"));
+
+        startJournal().drain();
+
+        assertEquals(List.of(List.of("s1", "s2")), submitted);
+        assertFalse(Files.exists(directory.resolve(SEGMENT)));
+        assertFalse(Files.exists(directory.resolve(SEGMENT + ".offset")));
+    }
+
+    @Test
+    void skipsLineTornByCrash() throws Exception {
+        writeSegment(line("s1"), "{\"studentId\":\"s2\",\"cour");
+
+        startJournal().drain();
+
+        assertEquals(List.of(List.of("s1")), submitted);
+        assertFalse(Files.exists(directory.resolve(SEGMENT)));
+    }
+
+    @Test
+    void poisonEntryIsDeadLetteredAndTheRestAreWritten() throws Exception {
+        writeSegment(line("s1"), line("s2"), line("s3"));
+        failure = batch -> studentIds(batch).contains("s2")
+                ? new ResponseStatusException(HttpStatus.NOT_FOUND, "Student not found: s2")
+                : null;
+
+        startJournal().drain();
+
+        assertEquals(List.of(List.of("s1"), List.of("s3")), submitted);
+        assertFalse(Files.exists(directory.resolve(SEGMENT)));
+        List<String> deadLetters = Files.readAllLines(directory.resolve(GradeJournal.DEAD_LETTER_FILE));
+        assertEquals(List.of(line("s2")), deadLetters);
+    }
+
+    @Test
+    void transientFailureKeepsSegmentForTheNextDrain() throws Exception {
+        writeSegment(line("s1"), line("s2"));
+        failure = batch -> new DataAccessResourceFailureException("connection refused");
+
+        startJournal().drain();
+
+        assertTrue(Files.exists(directory.resolve(SEGMENT)));
+        assertFalse(Files.exists(directory.resolve(GradeJournal.DEAD_LETTER_FILE)));
+
+        failure = batch -> null;
+        journal.drain();
+
+        assertEquals(List.of(List.of("s1", "s2")), submitted);
+        assertFalse(Files.exists(directory.resolve(SEGMENT)));
+    }
+
+    @Test
+    void resumesAfterTheLastCommittedChunk() throws Exception {
+        int total = GradeService.MAX_BATCH_SIZE + 500;
+        String[] lines = new String[total];
+        for (int i = 0; i < total; i++) {
+            lines[i] = line("s" + i);
+        }
+        writeSegment(lines);
+        failure = batch -> submitted.isEmpty() ? null : new DataAccessResourceFailureException("connection lost");
+
+        startJournal().drain();
+
+        assertEquals(1, submitted.size());
+        assertEquals(String.valueOf(GradeService.MAX_BATCH_SIZE),
+                Files.readString(directory.resolve(SEGMENT + ".offset")));
+
+        failure = batch -> null;
+        journal.drain();
+
+        assertEquals(2, submitted.size());
+        List<String> resumed = submitted.get(1);
+        assertEquals(500, resumed.size());
+        assertEquals("s" + GradeService.MAX_BATCH_SIZE, resumed.get(0));
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(List.of("segment-00000000000000000002.jsonl"),
+                    files.map(p -> p.getFileName().toString()).toList());
+        }
+    }
+
+    private GradeJournal startJournal() throws IOException {
+        when(gradeService.submitGrades(anyList())).thenAnswer(invocation -> {
+            List<GradeRequestDTO> batch = invocation.getArgument(0);
+            RuntimeException error = failure.apply(batch);
+            if (error != null) {
+                throw error;
+            }
+            submitted.add(studentIds(batch));
+            return List.of();
+        });
+        journal = new GradeJournal(gradeService, objectMapper, "journal", directory.toString(), 100, 1000);
+        journal.start();
+        return journal;
+    }
+
+    private void writeSegment(String... lines) throws IOException {
+        Files.write(directory.resolve(SEGMENT), (String.join("\n", lines) + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String line(String studentId) throws IOException {
+        return objectMapper.writeValueAsString(new GradeRequestDTO(studentId, "CS101", "HW1", "90", null,
+                Instant.parse("2025-01-01T00:00:00Z"), "admin", "F25", null));
+    }
+
+    private static List<String> studentIds(List<GradeRequestDTO> batch) {
+        return batch.stream().map(GradeRequestDTO::getStudentId).toList();
+    }
+}
@@ -0,0 +1,133 @@
+package com.nour.ali.java_learning_backend.service;
+
+import com.nour.ali.java_learning_backend.dto.GradeFilter;
+import com.nour.ali.java_learning_backend.dto.GradeResponseDTO;
+import com.nour.ali.java_learning_backend.model.GradeId;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GradeQueryCacheTest {
+
+    private static final GradeId S1_HW1 = new GradeId("s1", "CS101", "HW1", "F25");
+    private static final GradesChangedEvent S1_HW1_CHANGED = new GradesChangedEvent(List.of(S1_HW1), Set.of("prof"));
+
+    private final GradeQueryCache cache = new GradeQueryCache(100, 64L * 1024 * 1024);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void secondLookupIsServedFromCache() {
+        GradeFilter filter = new GradeFilter("s1", null, null, "prof", null);
+        List<GradeResponseDTO> first = cache.get(filter, loader("90"));
+
+        assertSame(first, cache.get(filter, loader("95")));
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getStats().getHits());
+    }
+
+    @Test
+    void writeRemovesEveryFilterThatCouldContainTheGrade() {
+        GradeFilter byStudent = new GradeFilter("s1", null, null, null, null);
+        GradeFilter byCourseAndAdmin = new GradeFilter(null, "CS101", null, "prof", null);
+        GradeFilter everything = new GradeFilter(null, null, null, null, null);
+        GradeFilter otherStudent = new GradeFilter("s2", null, null, null, null);
+        GradeFilter otherAdmin = new GradeFilter(null, "CS101", null, "someone-else", null);
+        for (GradeFilter filter : List.of(byStudent, byCourseAndAdmin, everything, otherStudent, otherAdmin)) {
+            cache.get(filter, loader("90"));
+        }
+
+        cache.onGradesChanged(S1_HW1_CHANGED);
+
+        assertEquals(2, cache.getStats().getEntries());
+        loads.set(0);
+        cache.get(otherStudent, loader("90"));
+        cache.get(otherAdmin, loader("90"));
+        assertEquals(0, loads.get());
+        cache.get(byStudent, loader("90"));
+        cache.get(byCourseAndAdmin, loader("90"));
+        cache.get(everything, loader("90"));
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void resultLoadedWhileAWriteCommittedIsNotCached() throws Exception {
+        GradeFilter filter = new GradeFilter(null, "CS101", "HW1", null, null);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch invalidated = new CountDownLatch(1);
+
+        CompletableFuture<List<GradeResponseDTO>> stale = CompletableFuture.supplyAsync(() -> cache.get(filter, () -> {
+            List<GradeResponseDTO> before = loader("70").get(); // read before the write committed
+            loading.countDown();
+            await(invalidated);
+            return before;
+        }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        cache.onGradesChanged(S1_HW1_CHANGED);
+        invalidated.countDown();
+
+        assertEquals("70", stale.get(5, TimeUnit.SECONDS).get(0).getGrade());
+        assertEquals("95", cache.get(filter, loader("95")).get(0).getGrade());
+        assertEquals(1, cache.getStats().getEntries());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedBeyondMaxEntries() {
+        GradeQueryCache small = new GradeQueryCache(2, 64L * 1024 * 1024);
+        GradeFilter a = new GradeFilter("a", null, null, null, null);
+        GradeFilter b = new GradeFilter("b", null, null, null, null);
+        GradeFilter c = new GradeFilter("c", null, null, null, null);
+        small.get(a, loader("1"));
+        small.get(b, loader("2"));
+        small.get(a, loader("1")); // a is now more recent than b
+
+        small.get(c, loader("3"));
+
+        assertEquals(2, small.getStats().getEntries());
+        assertEquals(1, small.getStats().getEvictions());
+        loads.set(0);
+        small.get(a, loader("1"));
+        assertEquals(0, loads.get());
+        small.get(b, loader("2"));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void oversizedResultIsNotCached() {
+        GradeQueryCache tiny = new GradeQueryCache(100, 1024);
+        GradeFilter filter = new GradeFilter(null, null, null, null, null);
+
+        tiny.get(filter, loader("90"));
+        tiny.get(filter, loader("90"));
+
+        assertEquals(2, loads.get());
+        assertEquals(0, tiny.getStats().getEntries());
+        assertEquals(2, tiny.getStats().getUncacheable());
+    }
+
+    private Supplier<List<GradeResponseDTO>> loader(String grade) {
+        return () -> {
+            loads.incrementAndGet();
+            return List.of(new GradeResponseDTO(S1_HW1.getStudentId(), S1_HW1.getCourse(), S1_HW1.getAssignment(),
+                    grade, null, null, Instant.parse("2025-01-01T00:00:00Z"), "prof", S1_HW1.getSemesterId(), null));
+        };
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
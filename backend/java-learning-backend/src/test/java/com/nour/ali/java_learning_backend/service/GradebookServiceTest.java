@@ -0,0 +1,92 @@
+package com.nour.ali.java_learning_backend.service;
+
+import com.nour.ali.java_learning_backend.dto.GradebookDTO;
+import com.nour.ali.java_learning_backend.model.GradeId;
+import com.nour.ali.java_learning_backend.repository.GradeRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class GradebookServiceTest {
+
+    private final GradeRepository gradeRepository = mock(GradeRepository.class);
+
+    @Test
+    void secondViewIsServedFromCache() {
+        GradebookService service = new GradebookService(gradeRepository, 10, 1 << 20);
+        stubGradebooks(3);
+
+        GradebookDTO first = service.getGradebook("prof", "CS101", "F25");
+
+        assertSame(first, service.getGradebook("prof", "CS101", "F25"));
+        verify(gradeRepository, times(1)).findGradebook("prof", "CS101", "F25");
+    }
+
+    @Test
+    void leastRecentlyViewedGoesPastMaxEntries() {
+        GradebookService service = new GradebookService(gradeRepository, 2, 1 << 20);
+        stubGradebooks(3);
+        service.getGradebook("prof", "A", "F25");
+        service.getGradebook("prof", "B", "F25");
+        service.getGradebook("prof", "A", "F25"); // A is now more recent than B
+
+        service.getGradebook("prof", "C", "F25");
+        service.getGradebook("prof", "A", "F25");
+        service.getGradebook("prof", "B", "F25");
+
+        verify(gradeRepository, times(1)).findGradebook("prof", "A", "F25");
+        verify(gradeRepository, times(2)).findGradebook("prof", "B", "F25");
+    }
+
+    @Test
+    void weightBoundsTheCacheAndHugeMatricesAreNotCached() {
+        GradebookService service = new GradebookService(gradeRepository, 100, 64 * 1024);
+        stubGradebooks(40); // 40 x 40 cells: too big for a quarter of the bound
+
+        service.getGradebook("prof", "CS101", "F25");
+        service.getGradebook("prof", "CS101", "F25");
+
+        verify(gradeRepository, times(2)).findGradebook("prof", "CS101", "F25");
+    }
+
+    @Test
+    void gradeWriteEvictsEveryAdminsMatrixForThatCourseSemester() {
+        GradebookService service = new GradebookService(gradeRepository, 10, 1 << 20);
+        stubGradebooks(3);
+        service.getGradebook("prof", "CS101", "F25");
+        service.getGradebook("other", "CS101", "F25");
+        service.getGradebook("prof", "CS102", "F25");
+
+        service.onGradesChanged(new GradesChangedEvent(List.of(new GradeId("s1", "CS101", "HW1", "F25")), Set.of("prof")));
+        service.getGradebook("prof", "CS101", "F25");
+        service.getGradebook("other", "CS101", "F25");
+        service.getGradebook("prof", "CS102", "F25");
+
+        verify(gradeRepository, times(2)).findGradebook("prof", "CS101", "F25");
+        verify(gradeRepository, times(2)).findGradebook("other", "CS101", "F25");
+        verify(gradeRepository, times(1)).findGradebook("prof", "CS102", "F25");
+    }
+
+    // A fresh size x size matrix per call, so cached and reloaded results can be told apart
+    private void stubGradebooks(int size) {
+        when(gradeRepository.findGradebook(anyString(), anyString(), anyString())).thenAnswer(invocation -> {
+            List<String> names = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                names.add("student-" + i);
+            }
+            List<List<String>> grades = Collections.nCopies(size, Collections.nCopies(size, "90"));
+            return new GradebookDTO(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2),
+                    names, names, grades);
+        });
+    }
+}
@@ -0,0 +1,73 @@
+package com.nour.ali.java_learning_backend.service;
+
+import com.nour.ali.java_learning_backend.dto.StudentRequestDTO;
+import com.nour.ali.java_learning_backend.repository.EnrollmentRepository;
+import com.nour.ali.java_learning_backend.repository.StudentRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class RosterCsvTest {
+
+    private final StudentService studentService = new StudentService(mock(StudentRepository.class),
+            mock(EnrollmentRepository.class), mock(PasswordHashingService.class), mock(PaymentLinkService.class),
+            mock(ApplicationEventPublisher.class), mock(TokenRevocationService.class), Runnable::run, 5000);
+
+    @Test
+    void readsColumnsInAnyOrder() {
+        List<StudentRequestDTO> roster = studentService.parseRosterCsv(
+                "Email,SemesterId,ID,Course\r\ns1@x.io,F25,s1,CS101\r\ns2@x.io,F25,s2,CS101\r\n");
+
+        assertEquals(2, roster.size());
+        assertEquals("s1", roster.get(0).getId());
+        assertEquals("s1@x.io", roster.get(0).getEmail());
+        assertEquals("CS101", roster.get(0).getCourse());
+        assertEquals("F25", roster.get(0).getSemesterId());
+        assertNull(roster.get(0).getPassword());
+        assertEquals("s2", roster.get(1).getId());
+    }
+
+    @Test
+    void quotedFieldsKeepCommasQuotesAndNewlines() {
+        List<StudentRequestDTO> roster = studentService.parseRosterCsv(
+                "studentId,email,course,semesterId,password\n"
+                        + "s1,s1@x.io,\"CS101, section A\",F25,\"pa\"\"ss\nword\"\n");
+
+        assertEquals(1, roster.size());
+        assertEquals("s1", roster.get(0).getId());
+        assertEquals("CS101, section A", roster.get(0).getCourse());
+        assertEquals("pa\"ss\nword", roster.get(0).getPassword());
+    }
+
+    @Test
+    void skipsByteOrderMarkBlankLinesAndToleratesShortRows() {
+        List<StudentRequestDTO> roster = studentService.parseRosterCsv(
+                "\uFEFFid,email,course,semesterId\n\ns1,s1@x.io,CS101,F25\n   \ns2,s2@x.io\n");
+
+        assertEquals(2, roster.size());
+        assertEquals("s1", roster.get(0).getId());
+        assertEquals("s2@x.io", roster.get(1).getEmail());
+        assertNull(roster.get(1).getCourse());
+    }
+
+    @Test
+    void rejectsEmptyRosterAndMissingColumns() {
+        ResponseStatusException empty = assertThrows(ResponseStatusException.class,
+                () -> studentService.parseRosterCsv("\n\n"));
+        assertEquals(HttpStatus.BAD_REQUEST, empty.getStatusCode());
+
+        ResponseStatusException missing = assertThrows(ResponseStatusException.class,
+                () -> studentService.parseRosterCsv("id,email,course\ns1,s1@x.io,CS101\n"));
+        assertEquals(HttpStatus.BAD_REQUEST, missing.getStatusCode());
+        assertTrue(missing.getReason().contains("semesterid"), missing.getReason());
+    }
+}
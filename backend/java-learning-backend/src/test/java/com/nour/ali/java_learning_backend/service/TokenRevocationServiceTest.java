@@ -0,0 +1,84 @@
+package com.nour.ali.java_learning_backend.service;
+
+import com.nour.ali.java_learning_backend.model.TokenRevocation;
+import com.nour.ali.java_learning_backend.repository.TokenRevocationRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TokenRevocationServiceTest {
+
+    private final TokenRevocationRepository repository = mock(TokenRevocationRepository.class);
+    private final TokenRevocationService service = new TokenRevocationService(repository,
+            mock(ApplicationEventPublisher.class), 3_600_000);
+
+    @Test
+    void snapshotHasNoFalseNegatives() {
+        Map<String, Long> revoked = new HashMap<>();
+        for (int i = 0; i < 5_000; i++) {
+            revoked.put("student-" + i, 1_000L);
+        }
+
+        TokenRevocationService.Snapshot snapshot = new TokenRevocationService.Snapshot(revoked);
+
+        revoked.keySet().forEach(subject -> assertTrue(snapshot.mightContain(subject), subject));
+    }
+
+    @Test
+    void snapshotRarelyMatchesOtherSubjects() {
+        Map<String, Long> revoked = new HashMap<>();
+        for (int i = 0; i < 5_000; i++) {
+            revoked.put("student-" + i, 1_000L);
+        }
+        TokenRevocationService.Snapshot snapshot = new TokenRevocationService.Snapshot(revoked);
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (snapshot.mightContain("other-" + i)) {
+                falsePositives++;
+            }
+        }
+
+        assertTrue(falsePositives < 100, falsePositives + " false positives in 100000");
+    }
+
+    @Test
+    void emptySnapshotContainsNothing() {
+        assertFalse(TokenRevocationService.Snapshot.EMPTY.mightContain("anyone"));
+    }
+
+    @Test
+    void tokensIssuedBeforeTheRevokedSecondAreRejected() {
+        Instant revokedBefore = Instant.parse("2025-03-01T10:00:05Z");
+        when(repository.findByRevokedBeforeAfter(any())).thenReturn(List.of(new TokenRevocation("s1", revokedBefore)));
+
+        service.refresh();
+
+        assertTrue(service.isRevoked("s1", revokedBefore.minusSeconds(1).toEpochMilli()));
+        // iat has whole seconds: a token issued within the revoked second reads as exactly revokedBefore
+        assertFalse(service.isRevoked("s1", revokedBefore.toEpochMilli()));
+        assertFalse(service.isRevoked("s2", revokedBefore.minusSeconds(1).toEpochMilli()));
+    }
+
+    @Test
+    void revocationsAreStoredInWholeSeconds() {
+        service.revoke("s1");
+
+        ArgumentCaptor<TokenRevocation> saved = ArgumentCaptor.forClass(TokenRevocation.class);
+        verify(repository).save(saved.capture());
+        assertEquals(0, saved.getValue().getRevokedBefore().getNano());
+    }
+}